@@ -0,0 +1,154 @@
+package com.reqsync.Reqsync.Config;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/// Turns on @Async and defines the executors the event listeners run on, so publishing an event returns right
+/// away instead of running the whole email and notification fan-out inside the request.
+///
+/// Each listener gets its own bounded pool (events.executor.<pool>.*) so a burst of one kind of event cannot
+/// starve the other. When a pool and its queue are full the rejection policy applies, CALLER_RUNS by default.
+/// The help request and issue listeners get their events from scheduled jobs (EventOutboxRelay and
+/// HelpRequestEventCoalescer) and use ABORT: the event stays in the outbox and is relayed again later, where
+/// CALLER_RUNS would run the whole fan-out on a scheduler thread.
+/// Every pool reports its queue depth and active threads (executor.* metrics tagged with name=<pool>) and the
+/// time its tasks wait and run (events.executor.task.wait / events.executor.task.duration).
+///
+/// The password hashing pool is sized to the CPUs and uses ABORT, so a login burst is refused with a 503 once
+/// its queue is full instead of holding request threads. What a login does once the password is verified (the
+/// refresh token insert) runs on the auth-token pool, so database latency never holds a hashing thread.
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String HELP_REQUEST_EXECUTOR = "helpRequestEventExecutor";
+    public static final String ISSUE_EXECUTOR = "issueEventExecutor";
+    public static final String FAN_OUT_EXECUTOR = "fanOutExecutor";
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+    public static final String AUTH_TOKEN_EXECUTOR = "authTokenExecutor";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean(name = HELP_REQUEST_EXECUTOR)
+    public ThreadPoolTaskExecutor helpRequestEventExecutor() {
+        return eventExecutor("help-request", 2, 8, 500, RejectionPolicy.ABORT);
+    }
+
+    @Bean(name = ISSUE_EXECUTOR)
+    public ThreadPoolTaskExecutor issueEventExecutor() {
+        return eventExecutor("issue", 2, 8, 500, RejectionPolicy.ABORT);
+    }
+
+    // Runs the partitions of each page of a volunteer fan-out, shared by the listeners above
+    @Bean(name = FAN_OUT_EXECUTOR)
+    public ThreadPoolTaskExecutor fanOutExecutor() {
+        return eventExecutor("fan-out");
+    }
+
+    // BCrypt is CPU bound, more threads than CPUs only make every login slower
+    @Bean(name = PASSWORD_HASHING_EXECUTOR)
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return eventExecutor("password-hashing", cpus, cpus, 4 * cpus, RejectionPolicy.ABORT);
+    }
+
+    @Bean(name = AUTH_TOKEN_EXECUTOR)
+    public ThreadPoolTaskExecutor authTokenExecutor() {
+        return eventExecutor("auth-token");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor defaultEventExecutor() {
+        return eventExecutor("default");
+    }
+
+    // Used by @Async methods that do not name an executor
+    @Override
+    public Executor getAsyncExecutor() {
+        return defaultEventExecutor();
+    }
+
+    // A void @Async method has nobody to throw to, log what it threw
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Async {}.{} failed", method.getDeclaringClass().getSimpleName(),
+                method.getName(), ex);
+    }
+
+    private ThreadPoolTaskExecutor eventExecutor(String pool) {
+        return eventExecutor(pool, 2, 8, 500, RejectionPolicy.CALLER_RUNS);
+    }
+
+    private ThreadPoolTaskExecutor eventExecutor(String pool, int defaultCoreSize, int defaultMaxSize,
+            int defaultQueueCapacity, RejectionPolicy defaultPolicy) {
+        String prefix = "events.executor." + pool + ".";
+        int coreSize = environment.getProperty(prefix + "core-size", Integer.class, defaultCoreSize);
+        int maxSize = environment.getProperty(prefix + "max-size", Integer.class, Math.max(coreSize, defaultMaxSize));
+        int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, defaultQueueCapacity);
+        RejectionPolicy policy = environment.getProperty(prefix + "rejection-policy", RejectionPolicy.class,
+                defaultPolicy);
+
+        Timer waitTimer = Timer.builder("events.executor.task.wait").tag("name", pool).register(meterRegistry);
+        Timer durationTimer = Timer.builder("events.executor.task.duration").tag("name", pool)
+                .register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("event-" + pool + "-");
+        executor.setRejectedExecutionHandler(rejectionHandler(pool, policy));
+        executor.setTaskDecorator(task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    durationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true); // Let queued emails go out on a normal shutdown
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), pool, List.of(Tag.of("pool", "event")))
+                .bindTo(meterRegistry);
+        return executor;
+    }
+
+    private RejectedExecutionHandler rejectionHandler(String pool, RejectionPolicy policy) {
+        RejectedExecutionHandler delegate = policy == RejectionPolicy.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy();
+        return (task, executor) -> {
+            meterRegistry.counter("events.executor.rejected", "name", pool, "policy", policy.name()).increment();
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+}
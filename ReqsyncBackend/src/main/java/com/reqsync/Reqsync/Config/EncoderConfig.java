@@ -1,9 +1,12 @@
 package com.reqsync.Reqsync.Config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,7 +17,34 @@ import lombok.Setter;
 @Setter
 public class EncoderConfig {
 
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private PasswordEncoder encoder;
+
+    // One BCrypt encoder, timed as auth.password.hash with op=encode|matches to size the hashing pool
+    public synchronized PasswordEncoder passwordEncoder() {
+        if (encoder == null) {
+            PasswordEncoder bcrypt = new BCryptPasswordEncoder();
+            Timer encodeTimer = Timer.builder("auth.password.hash").tag("op", "encode").register(meterRegistry);
+            Timer matchesTimer = Timer.builder("auth.password.hash").tag("op", "matches").register(meterRegistry);
+            encoder = new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    return encodeTimer.record(() -> bcrypt.encode(rawPassword));
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    return matchesTimer.record(() -> bcrypt.matches(rawPassword, encodedPassword));
+                }
+
+                @Override
+                public boolean upgradeEncoding(String encodedPassword) {
+                    return bcrypt.upgradeEncoding(encodedPassword);
+                }
+            };
+        }
+        return encoder;
     }
 }
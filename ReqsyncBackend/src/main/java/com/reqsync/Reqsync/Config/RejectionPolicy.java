@@ -0,0 +1,9 @@
+package com.reqsync.Reqsync.Config;
+
+// What an event executor does with a task when its threads are busy and its queue is full
+public enum RejectionPolicy {
+    CALLER_RUNS, // The publishing thread runs the listener itself, which slows the publisher down instead of losing
+                 // the event
+    ABORT // The task is dropped and a TaskRejectedException is thrown to the publisher, which has to keep the
+          // event for later (the event outbox does)
+}
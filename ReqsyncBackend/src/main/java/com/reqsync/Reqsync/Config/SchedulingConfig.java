@@ -0,0 +1,32 @@
+package com.reqsync.Reqsync.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Turns on the @Scheduled background jobs like the SSE heartbeat
+@Configuration
+@EnableScheduling
+@Slf4j
+public class SchedulingConfig {
+
+    @Value("${scheduling.pool-size:8}")
+    private int poolSize;
+
+    /// Runs every @Scheduled job (heartbeats, outbox relays and polls, the broker, digests, cleanups). Without it
+    /// they would share a single thread, and one slow job would hold back all the others.
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setErrorHandler(e -> log.error("Scheduled job failed", e)); // Keeps the job scheduled
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
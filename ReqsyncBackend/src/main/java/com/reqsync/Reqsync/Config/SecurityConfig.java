@@ -46,7 +46,8 @@ public class SecurityConfig {
     http.cors(cors -> corsFilter())
         .csrf(csrf -> csrf.disable()) // Disable CSRF for stateless APIs
         .authorizeHttpRequests(auth -> auth
-            .requestMatchers("/api/hospitals/**", "/api/auth/**", "/api/news/**", "/api/notifications/subscribe")
+            .requestMatchers("/api/hospitals/**", "/api/auth/**", "/api/news/**", "/api/notifications/subscribe",
+                "/ws/**")
             .permitAll()
             .anyRequest().authenticated() // Protect all other endpoints
         )
@@ -81,6 +82,7 @@ public class SecurityConfig {
     config.addAllowedOrigin("http://localhost:3000");
     config.addAllowedHeader("*");
     config.addExposedHeader("Authorization");
+    config.addExposedHeader("Refresh-Token");
     config.addExposedHeader("abc");
     config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS")); // ✅ Explicitly allow methods
     source.registerCorsConfiguration("/**", config);
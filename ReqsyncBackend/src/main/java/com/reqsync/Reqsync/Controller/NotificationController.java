@@ -1,9 +1,20 @@
 package com.reqsync.Reqsync.Controller;
 
+import com.reqsync.Reqsync.Dto.InboxPageDto;
+import com.reqsync.Reqsync.Dto.InboxReadDto;
+import com.reqsync.Reqsync.Service.NotificationInboxService;
 import com.reqsync.Reqsync.Service.NotificationService;
+
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -15,8 +26,45 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationInboxService notificationInboxService;
+
+    // Browsers send Last-Event-ID by themselves when an EventSource reconnects, clients that open a new
+    // EventSource can pass the last id they saw as the lastEventId parameter instead
     @GetMapping("/api/notifications/subscribe")
-    public SseEmitter subscribe(@RequestParam String email) {
-        return notificationService.subscribe(email);
+    public SseEmitter subscribe(@RequestParam String email,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return notificationService.subscribe(email, parseEventId(lastEventId));
+    }
+
+    // Unread notifications stored while the user was offline, newest first. Pass the returned nextBefore as
+    // before to get the next page.
+    @GetMapping("/api/notifications/inbox")
+    public ResponseEntity<InboxPageDto> inbox(@RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(notificationInboxService.unread(before, limit));
+    }
+
+    @PostMapping("/api/notifications/inbox/read")
+    public ResponseEntity<?> markRead(@RequestBody InboxReadDto readDto) {
+        try {
+            int updated = notificationInboxService.markRead(readDto);
+            return ResponseEntity.ok(Map.of("updated", updated));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null; // Unknown id, the client simply gets no replay
+        }
     }
 }
\ No newline at end of file
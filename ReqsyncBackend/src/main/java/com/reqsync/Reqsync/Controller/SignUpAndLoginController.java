@@ -1,6 +1,10 @@
 package com.reqsync.Reqsync.Controller;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,12 +12,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.reqsync.Reqsync.Config.AsyncConfig;
 import com.reqsync.Reqsync.Dto.UserDto;
 import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.JwtConfig.JwtService;
+import com.reqsync.Reqsync.JwtConfig.RefreshTokenService;
 import com.reqsync.Reqsync.Model.AuthRequest;
+import com.reqsync.Reqsync.Model.RefreshRequest;
+import com.reqsync.Reqsync.RateLimit.LoginRateLimiter;
+import com.reqsync.Reqsync.Service.PasswordHashingService;
 import com.reqsync.Reqsync.Service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -26,21 +36,54 @@ public class SignUpAndLoginController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.AUTH_TOKEN_EXECUTOR)
+    private Executor authTokenExecutor;
+
+    // Both endpoints hash a password, that runs on the password hashing pool and the request thread is released
+    // until it is done. The rate limits key on getRemoteAddr(), behind a reverse proxy that is the client address
+    // only with server.forward-headers-strategy=native (see LoginRateLimiter)
     @PostMapping("/signup")
-    public ResponseEntity<User> signUp(@Valid @RequestBody UserDto userDao) {
-        User user = userService.addUser(userDao);
-        return ResponseEntity.status(HttpStatus.CREATED).body(user);
+    public CompletableFuture<ResponseEntity<User>> signUp(@Valid @RequestBody UserDto userDao,
+            HttpServletRequest request) {
+        loginRateLimiter.check(request.getRemoteAddr(), userDao.getEmail());
+        return passwordHashingService.submit(() -> userService.addUser(userDao))
+                .thenApply(user -> ResponseEntity.status(HttpStatus.CREATED).body(user));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody AuthRequest authRequest) {
-
-        String jwt = jwtService.authentication(authRequest.getEmail(), authRequest.getPassword());
-        return ResponseEntity.status(HttpStatus.OK)
-                .header("Authorization", "Bearer " + jwt) // Add the token as a Bearer token
-                .body("Login successful. JWT token added in the header." + jwt);
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody AuthRequest authRequest,
+            HttpServletRequest request) {
+        loginRateLimiter.check(request.getRemoteAddr(), authRequest.getEmail());
+        return passwordHashingService
+                .submit(() -> jwtService.authentication(authRequest.getEmail(), authRequest.getPassword()))
+                // The refresh token insert waits on the database, keep it off the hashing pool
+                .thenApplyAsync(jwt -> ResponseEntity.status(HttpStatus.OK)
+                        .header("Authorization", "Bearer " + jwt) // Add the token as a Bearer token
+                        // Trade it at /api/auth/refresh for a new access token instead of logging in again
+                        .header("Refresh-Token", refreshTokenService.issue(authRequest.getEmail()))
+                        .body("Login successful. JWT token added in the header." + jwt), authTokenExecutor);
 
         // return ResponseEntity.ok(Map.of("token", jwt));
     }
 
+    // No password involved, runs on the request thread
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest refreshRequest) {
+        RefreshTokenService.Refreshed refreshed = refreshTokenService.refresh(refreshRequest.getRefreshToken());
+        return ResponseEntity.status(HttpStatus.OK)
+                .header("Authorization", "Bearer " + refreshed.accessToken())
+                .header("Refresh-Token", refreshed.refreshToken()) // The one sent is used up
+                .body("Token refreshed. JWT token added in the header." + refreshed.accessToken());
+    }
+
 }
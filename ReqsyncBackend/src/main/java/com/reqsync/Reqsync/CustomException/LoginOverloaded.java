@@ -0,0 +1,13 @@
+package com.reqsync.Reqsync.CustomException;
+
+public class LoginOverloaded extends RuntimeException {
+    /**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public LoginOverloaded(String message) {
+        super(message);
+    }
+
+}
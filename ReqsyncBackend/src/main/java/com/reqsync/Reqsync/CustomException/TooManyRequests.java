@@ -0,0 +1,13 @@
+package com.reqsync.Reqsync.CustomException;
+
+public class TooManyRequests extends RuntimeException {
+    /**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public TooManyRequests(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.reqsync.Reqsync.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxNotificationDto {
+    private Long id;
+    private String message;
+    private long timestamp;
+}
@@ -0,0 +1,17 @@
+package com.reqsync.Reqsync.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxPageDto {
+    private List<InboxNotificationDto> items;
+    private Long nextBefore; // Pass it as "before" to get the next page, null when there is no more
+}
@@ -0,0 +1,15 @@
+package com.reqsync.Reqsync.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxReadDto {
+    private List<Long> ids; // Marks these notifications as read
+    private Long upToId; // Or marks everything up to this id as read
+}
@@ -32,4 +32,7 @@ public class VolunteerFormDto {
     @NotBlank(message = "About is required.")
     @Size(max = 10000, message = "About section must be less than 1000 characters.")
     private String about;
+
+    private Boolean digestMode; // true for one summary email per interval instead of one per help request, left
+                                // unchanged when null
 }
@@ -0,0 +1,60 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Emails that could not be sent after every retry, or that can never be sent (a malformed address). Kept for
+// inspection, nothing reads them automatically.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "email_dead_letter")
+public class EmailDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "outbox_id", nullable = false)
+    private long outboxId;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Lob
+    @Column(name = "bcc", nullable = true, columnDefinition = "MEDIUMTEXT")
+    private String bcc; // The BCC recipients that failed, for a broadcast
+
+    @Column(name = "sender", nullable = true)
+    private String sender;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(name = "body", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String body;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", nullable = true, length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private long failedAt;
+}
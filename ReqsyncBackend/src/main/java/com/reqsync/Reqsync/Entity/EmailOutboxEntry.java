@@ -0,0 +1,61 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Emails waiting to be sent. EmailService only writes rows here, EmailOutboxWorker sends them in the background
+// and deletes each row once the SMTP server accepted it. A failed send is retried later with a growing delay.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "email_outbox", indexes = @Index(name = "idx_email_outbox_next_attempt", columnList = "next_attempt_at"))
+public class EmailOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Lob
+    @Column(name = "bcc", nullable = true, columnDefinition = "MEDIUMTEXT")
+    private String bcc; // Recipients of a broadcast chunk, one per line
+
+    @Column(name = "sender", nullable = true)
+    private String sender; // Null for the default sender of the mail server
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(name = "body", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String body; // HTML
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private long nextAttemptAt; // The end of the lease while a worker holds the row
+
+    @Column(name = "claim_token", nullable = true, length = 36)
+    private String claimToken;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", nullable = true, length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,63 @@
+package com.reqsync.Reqsync.Entity;
+
+import com.reqsync.Reqsync.Events.EventOutboxType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Domain events written in the same transaction as the change they describe, so an event exists only if the
+// change was committed. EventOutboxRelay claims pending rows with a lease and hands them to the listeners, the
+// listener marks the row processed once it is done. A row whose lease runs out is claimed again. A fan-out
+// records the last volunteer it finished in progress and renews the lease with it, a redelivery goes on from
+// there instead of notifying the same volunteers again.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "event_outbox", indexes = @Index(name = "idx_event_outbox_pending", columnList = "processed_at, available_at"))
+public class EventOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private EventOutboxType eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private long aggregateId; // Id of the help request or issue, the relay loads it when the event is delivered
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "available_at", nullable = false)
+    private long availableAt; // When the row can be claimed (again), the end of the lease while it is claimed
+
+    @Column(name = "claim_token", nullable = true, length = 36)
+    private String claimToken;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "progress", nullable = true)
+    private Long progress; // Id of the last volunteer the fan-out finished, 0 once the topic push went out
+
+    @Column(name = "processed_at", nullable = true)
+    private Long processedAt; // Null until a listener finished the event
+
+    @Column(name = "failed", nullable = false)
+    private boolean failed; // Gave up after too many attempts
+}
@@ -0,0 +1,40 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Notifications kept for users that were offline when they were sent. Rows are small on purpose, the
+// timestamp is stored as epoch millis and the index matches the unread keyset query of the inbox endpoint.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "notification_inbox", indexes = @Index(name = "idx_inbox_recipient_unread", columnList = "recipient_email, is_read, id"))
+public class InboxNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_email", nullable = false)
+    private String recipientEmail;
+
+    @Column(name = "message", nullable = false, length = 500)
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean read;
+}
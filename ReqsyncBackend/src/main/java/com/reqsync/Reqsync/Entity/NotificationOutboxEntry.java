@@ -0,0 +1,58 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Notifications waiting to be picked up by the other backend nodes. Every node polls the rows newer than the
+// last one it has seen, rows are short lived and deleted after a retention window.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "notification_outbox", indexes = @Index(name = "idx_notification_outbox_created", columnList = "created_at"))
+public class NotificationOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "target_node", nullable = true, length = 64)
+    private String targetNode; // Null for topic publishes, which every node receives
+
+    @Column(name = "kind", nullable = false, length = 8)
+    private String kind; // USERS or TOPIC
+
+    @Lob
+    @Column(name = "target", nullable = false, columnDefinition = "TEXT")
+    private String target; // The topic, or the recipients' emails separated by new lines
+
+    @Column(name = "event_id", nullable = false)
+    private long eventId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Lob
+    @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+    private String message; // Not cut, the other nodes deliver it the same as this node did
+
+    @Column(name = "event_timestamp", nullable = false)
+    private long eventTimestamp;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+}
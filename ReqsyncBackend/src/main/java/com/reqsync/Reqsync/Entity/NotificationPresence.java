@@ -0,0 +1,46 @@
+package com.reqsync.Reqsync.Entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Which node holds a connection of which user. Each node refreshes its own rows on a fixed interval, rows
+// that are not refreshed (the node died) are ignored and cleaned up.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(NotificationPresence.Key.class)
+@Table(name = "notification_presence", indexes = @Index(name = "idx_notification_presence_node", columnList = "node_id"))
+public class NotificationPresence {
+
+    @Id
+    @Column(name = "email", nullable = false)
+    private String email;
+
+    @Id
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String email;
+        private String nodeId;
+    }
+}
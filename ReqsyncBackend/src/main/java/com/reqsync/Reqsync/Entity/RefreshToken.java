@@ -0,0 +1,48 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// A refresh token, written and read by RefreshTokenService with plain JDBC. Only the SHA-256 of the token is
+// stored. Every refresh uses the token up and issues the next one of the same family, a used token that comes
+// back means it was stolen and the whole family is revoked.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_family", columnList = "family"),
+        @Index(name = "idx_refresh_tokens_email", columnList = "user_email"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at") })
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 43) // Base64url SHA-256, without padding
+    private String tokenHash;
+
+    @Column(name = "family", nullable = false, length = 36)
+    private String family; // The login this token descends from
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Column(name = "used_at", nullable = true)
+    private Long usedAt; // Set once the token was exchanged for the next one
+}
@@ -52,6 +52,10 @@ public class User {
         @Column(name = "profile_picture", nullable = true, columnDefinition = "LONGBLOB")
         private byte[] profilePicture;
 
+        // Bumped by TokenVersionService when the roles change, never written through the entity
+        @Column(name = "token_version", columnDefinition = "INT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+        private int tokenVersion;
+
         @ManyToMany(fetch = FetchType.EAGER)
         @JsonManagedReference
         @JoinTable(name = "signupuser_roles", joinColumns = @JoinColumn(name = "user_email", referencedColumnName = "email"), inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -68,4 +68,8 @@ public class Volunteer {
     @CollectionTable(name = "volunteer_skills", joinColumns = @JoinColumn(name = "volunteer_id"))
     @Column(name = "skill", nullable = false)
     private List<String> skills;
+
+    // The volunteer gets one summary email of the new help requests per interval instead of one email each
+    @Column(name = "digest_mode", nullable = false, columnDefinition = "boolean default false")
+    private boolean digestMode;
 }
@@ -0,0 +1,40 @@
+package com.reqsync.Reqsync.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Help requests waiting for the next digest email of a volunteer. The fan-out only appends rows, the digest job
+// reads them per volunteer (hence the index), sends one email and deletes them.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "volunteer_digest_pending", indexes = @Index(name = "idx_digest_pending_volunteer", columnList = "volunteer_email, id"))
+public class VolunteerDigestPending {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "volunteer_email", nullable = false)
+    private String volunteerEmail;
+
+    @Column(name = "volunteer_name", nullable = false)
+    private String volunteerName;
+
+    @Column(name = "help_request_id", nullable = false)
+    private long helpRequestId;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+}
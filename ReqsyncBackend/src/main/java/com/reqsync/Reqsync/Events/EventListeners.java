@@ -1,31 +1,41 @@
 package com.reqsync.Reqsync.Events;
 
+import com.reqsync.Reqsync.Config.AsyncConfig;
 import com.reqsync.Reqsync.CustomException.UsersNotFound;
-import com.reqsync.Reqsync.Dto.NotificationDto;
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
 import com.reqsync.Reqsync.Entity.HelpRequest;
 import com.reqsync.Reqsync.Entity.RequestHelperIssue;
 import com.reqsync.Reqsync.Entity.User;
-import com.reqsync.Reqsync.Entity.Volunteer;
+import com.reqsync.Reqsync.Mail.OutgoingEmail;
+import com.reqsync.Reqsync.Matching.VolunteerContact;
+import com.reqsync.Reqsync.Matching.VolunteerMatchIndex;
+import com.reqsync.Reqsync.Notification.NotificationTopics;
 import com.reqsync.Reqsync.Repository.HelpRequestRepository;
 import com.reqsync.Reqsync.Repository.HelpRequestorIssueRepository;
 import com.reqsync.Reqsync.Repository.UserRepository;
-import com.reqsync.Reqsync.Repository.VolunteerRepository;
 import com.reqsync.Reqsync.Service.EmailService;
 import com.reqsync.Reqsync.Service.NotificationService;
+import com.reqsync.Reqsync.Service.VolunteerDigestService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 ///An Event Listener waits for an event to be published and performs some action when it occurs.
-///Here, HelpRequestEventListener listens for HelpRequestCreatedEvent and sends emails to all volunteers when a new help request is created.
+///Here, HelpRequestEventListener listens for HelpRequestCreatedEvent and notifies the volunteers matching the help type and area when a new help request is created.
 @Component
 public class EventListeners {
 
     @Autowired
-    private VolunteerRepository volunteerRepository;
+    private VolunteerMatchIndex volunteerMatchIndex; /// Finds the volunteers to notify without loading them.
 
     @Autowired
     private EmailService emailService;
@@ -42,31 +52,76 @@ public class EventListeners {
     @Autowired
     private NotificationService notificationService;
 
-    @Async /// Runs this method in the background to prevent blocking the main thread while
-           /// sending emails to all volunteers in the database at once when a new help
-           /// request is created in the system.
-    @EventListener // This method listens for HelpRequestCreatedEvent events.
-    public void onHelpRequestCreated(HelpRequestCreatedEvent event) {
-        HelpRequest helpRequest = event.getHelpRequest();
-        List<Volunteer> volunteers = volunteerRepository.findAll();
+    @Autowired
+    private EventOutbox eventOutbox;
+
+    @Autowired
+    private VolunteerDigestService volunteerDigestService;
 
-        volunteers.forEach(volunteer -> {
+    @Autowired
+    @Qualifier(AsyncConfig.FAN_OUT_EXECUTOR)
+    private Executor fanOutExecutor; /// Sends the emails of one fan-out page in parallel.
 
-            // Build and send SSE notification using the user's email
-            NotificationDto notification = new NotificationDto();
-            notification.setEmail(volunteer.getUser().getEmail());
-            notification.setMessage("A new help request for " + helpRequest.getHelpType() + " has been posted.");
-            notification.setTimestamp(System.currentTimeMillis());
+    @Value("${events.fan-out.page-size:500}")
+    private int fanOutPageSize;
 
-            notificationService.sendNotification(volunteer.getUser().getEmail(), notification);
+    @Value("${events.fan-out.partitions:4}")
+    private int fanOutPartitions;
 
-            emailService.sendHelpRequestEmail(helpRequest, volunteer.getUser().getEmail(), volunteer.getName());
+    /// Runs this method in the background to prevent blocking the main thread while sending emails to all
+    /// volunteers in the database at once when a new help request is created in the system.
+    @Async(AsyncConfig.HELP_REQUEST_EXECUTOR)
+    @EventListener // This method listens for HelpRequestCreatedEvent events.
+    public void onHelpRequestCreated(HelpRequestCreatedEvent event) {
+        if (alreadyProcessed(event.getOutboxId())) {
+            return; // A redelivery of an event another run already finished
+        }
+        Long progress = progress(event.getOutboxId());
+        HelpRequest helpRequest = event.getHelpRequest();
+        VolunterrTypes helpType = NotificationTopics.parseHelpType(helpRequest.getHelpType());
+        String area = NotificationTopics.normalizeArea(helpRequest.getArea());
+
+        String message = "A new help request for " + helpRequest.getHelpType() + " has been posted.";
+        long timestamp = System.currentTimeMillis();
+
+        // Push the SSE notification once to the topic of this help type and area, only the volunteers that
+        // joined that topic receive it. A redelivered event already did
+        if (progress == null) {
+            notificationService.publish(NotificationTopics.forHelpRequest(helpRequest.getHelpType(), area), message,
+                    timestamp);
+            recordProgress(event.getOutboxId(), 0);
+        }
+
+        // Only the volunteers offering this type of help in the same area are emailed, an unknown type matches
+        // every volunteer of the area. They are handled a page at a time so memory does not grow with the table
+        long afterId = progress != null ? progress : 0;
+        volunteerMatchIndex.forEachPage(helpType, area, afterId, fanOutPageSize, volunteers -> {
+            // The ones that are not connected find the notification in their inbox later
+            notificationService.storeForOffline(volunteers.stream().map(VolunteerContact::email).toList(), message,
+                    timestamp);
+
+            // Volunteers in digest mode get the request in their next summary email instead
+            List<VolunteerContact> immediate = new ArrayList<>(volunteers.size());
+            List<VolunteerContact> digest = new ArrayList<>();
+            for (VolunteerContact volunteer : volunteers) {
+                (volunteer.digest() ? digest : immediate).add(volunteer);
+            }
+            volunteerDigestService.append(digest, helpRequest.getId());
+
+            inPartitions(immediate, volunteer -> {
+                emailService.sendHelpRequestEmail(helpRequest, volunteer.email(), volunteer.name());
+            });
+            recordProgress(event.getOutboxId(), lastId(volunteers));
         });
+        markProcessed(event.getOutboxId());
     }
 
-    @Async
+    @Async(AsyncConfig.ISSUE_EXECUTOR)
     @EventListener // This method listens for HelpRequestCreatedEvent events.
     public void onHelpRequestorIssue(HelpRequestorIssueCreatedEvent event) {
+        if (alreadyProcessed(event.getOutboxId())) {
+            return;
+        }
         RequestHelperIssue helpRequest = event.getHelpRequestorIssue();
         Long id = helpRequest.getId();
         RequestHelperIssue helperIssue = helpRequestorIssueRepository.findById(id)
@@ -75,13 +130,61 @@ public class EventListeners {
         User user = userRepository.findByEmail(email).orElseThrow(() -> new UsersNotFound("User not found"));
         HelpRequest requestor = helpRequestRepository.findByUser(user)
                 .orElseThrow(() -> new UsersNotFound("Help Request not found"));
-        List<Volunteer> volunteers = volunteerRepository.findAll();
-
-        volunteers.forEach(volunteer -> {
-            emailService.sendRequestIssueReportedEmail(helperIssue, volunteer.getUser().getEmail(), requestor.getName(),
-                    requestor.getHelpType(), helperIssue.getReportedAt(), helperIssue.getDescription(),
-                    helperIssue.getVolunteerEmail());
+        // The email is the same for every volunteer, it is rendered once and sent in BCC chunks
+        OutgoingEmail broadcast = emailService.requestIssueReportedBroadcast(helperIssue, requestor.getName(),
+                requestor.getHelpType(), helperIssue.getReportedAt(), helperIssue.getDescription(),
+                helperIssue.getVolunteerEmail());
+        String message = "An issue was reported on the " + requestor.getHelpType() + " help request of "
+                + requestor.getName() + ".";
+        long timestamp = System.currentTimeMillis();
+        Long progress = progress(event.getOutboxId());
+        volunteerMatchIndex.forEachPage(progress != null ? progress : 0, fanOutPageSize, volunteers -> {
+            List<String> emails = volunteers.stream().map(VolunteerContact::email).toList();
+            // One rendered frame for the connected volunteers of the page, the others find it in their inbox
+            notificationService.broadcast(emails, message, timestamp);
+            emailService.sendBroadcast(broadcast, emails);
+            recordProgress(event.getOutboxId(), lastId(volunteers));
         });
+        markProcessed(event.getOutboxId());
+    }
+
+    // Splits the page into fan-out-partitions slices that run in parallel and waits for all of them, so the next
+    // page is only fetched once this one is done. The first failure is rethrown after every slice finished
+    private void inPartitions(List<VolunteerContact> page, Consumer<VolunteerContact> action) {
+        int partitions = Math.max(1, Math.min(fanOutPartitions, page.size()));
+        int sliceSize = (page.size() + partitions - 1) / partitions;
+        List<CompletableFuture<Void>> slices = new ArrayList<>(partitions);
+        for (int from = 0; from < page.size(); from += sliceSize) {
+            List<VolunteerContact> slice = page.subList(from, Math.min(page.size(), from + sliceSize));
+            slices.add(CompletableFuture.runAsync(() -> slice.forEach(action), fanOutExecutor));
+        }
+        CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new)).join();
+    }
+
+    // Events relayed from the outbox can be delivered more than once, see EventOutboxRelay
+    private boolean alreadyProcessed(Long outboxId) {
+        return outboxId != null && eventOutbox.isProcessed(outboxId);
+    }
+
+    // A redelivered event goes on after the last page a previous run finished, only that page can be sent twice
+    private Long progress(Long outboxId) {
+        return outboxId != null ? eventOutbox.progress(outboxId) : null;
+    }
+
+    private void recordProgress(Long outboxId, long lastVolunteerId) {
+        if (outboxId != null) {
+            eventOutbox.recordProgress(outboxId, lastVolunteerId);
+        }
+    }
+
+    private static long lastId(List<VolunteerContact> page) {
+        return page.get(page.size() - 1).id(); // Pages are in id order
+    }
+
+    private void markProcessed(Long outboxId) {
+        if (outboxId != null) {
+            eventOutbox.markProcessed(outboxId);
+        }
     }
 
 }
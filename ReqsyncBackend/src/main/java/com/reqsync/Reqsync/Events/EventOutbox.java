@@ -0,0 +1,97 @@
+package com.reqsync.Reqsync.Events;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/// Reads and writes the event_outbox table, see EventOutboxEntry. Plain JDBC keeps the claim a single
+/// UPDATE and lets enqueue() join the caller's JPA transaction.
+@Component
+public class EventOutbox {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${events.outbox.lease-ms:300000}")
+    private long leaseMillis;
+
+    public record Claimed(long id, EventOutboxType type, long aggregateId, int attempts) {
+    }
+
+    /// Records the event as part of the current transaction, it is delivered only once that commits. Without a
+    /// transaction the row is committed on its own.
+    @Transactional
+    public void enqueue(EventOutboxType type, long aggregateId) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO event_outbox (event_type, aggregate_id, created_at, available_at, attempts, failed) VALUES (?, ?, ?, ?, 0, false)",
+                type.name(), aggregateId, now, now);
+    }
+
+    /// Leases up to limit pending events to the caller, the oldest first. Claimed rows are not handed out
+    /// again until the lease ends, so several nodes can run the relay at the same time.
+    public List<Claimed> claim(int limit) {
+        String token = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        int claimed = jdbcTemplate.update("UPDATE event_outbox SET claim_token = ?, available_at = ?, attempts = attempts + 1 WHERE processed_at IS NULL AND available_at <= ? ORDER BY id LIMIT ?",
+                token, now + leaseMillis, now, limit);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT id, event_type, aggregate_id, attempts FROM event_outbox WHERE claim_token = ? AND processed_at IS NULL ORDER BY id",
+                (rs, i) -> new Claimed(rs.getLong("id"), EventOutboxType.valueOf(rs.getString("event_type")),
+                        rs.getLong("aggregate_id"), rs.getInt("attempts")),
+                token);
+    }
+
+    public boolean isProcessed(long id) {
+        Integer processed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM event_outbox WHERE id = ? AND processed_at IS NOT NULL", Integer.class, id);
+        return processed != null && processed > 0;
+    }
+
+    /// How far the fan-out of the event got, null when it never started. See recordProgress().
+    public Long progress(long id) {
+        List<Long> rows = jdbcTemplate.queryForList("SELECT progress FROM event_outbox WHERE id = ?", Long.class, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /// Records that the fan-out finished every volunteer up to lastVolunteerId and extends the lease, so a fan-out
+    /// that keeps making progress is not relayed a second time while it runs.
+    public void recordProgress(long id, long lastVolunteerId) {
+        jdbcTemplate.update("UPDATE event_outbox SET progress = ?, available_at = ? WHERE id = ? AND processed_at IS NULL",
+                lastVolunteerId, System.currentTimeMillis() + leaseMillis, id);
+    }
+
+    public void markProcessed(long id) {
+        jdbcTemplate.update("UPDATE event_outbox SET processed_at = ? WHERE id = ? AND processed_at IS NULL",
+                System.currentTimeMillis(), id);
+    }
+
+    public void markFailed(long id) {
+        jdbcTemplate.update("UPDATE event_outbox SET processed_at = ?, failed = true WHERE id = ? AND processed_at IS NULL",
+                System.currentTimeMillis(), id);
+    }
+
+    /// Makes a claimed event available again before its lease ends, used when it could not be handed over.
+    public void release(long id) {
+        jdbcTemplate.update("UPDATE event_outbox SET available_at = ?, claim_token = NULL WHERE id = ? AND processed_at IS NULL",
+                System.currentTimeMillis(), id);
+    }
+
+    /// Makes a claimed event available again at the given time without counting the attempt, used when the
+    /// listener's executor was full and the event was not handed over at all.
+    public void postpone(long id, long availableAt) {
+        jdbcTemplate.update("UPDATE event_outbox SET available_at = ?, claim_token = NULL, attempts = attempts - 1 WHERE id = ? AND processed_at IS NULL",
+                availableAt, id);
+    }
+
+    public int deleteProcessedBefore(long before) {
+        return jdbcTemplate.update("DELETE FROM event_outbox WHERE processed_at IS NOT NULL AND processed_at < ?",
+                before);
+    }
+}
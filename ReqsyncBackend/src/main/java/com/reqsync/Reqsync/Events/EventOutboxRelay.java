@@ -0,0 +1,97 @@
+package com.reqsync.Reqsync.Events;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.Repository.HelpRequestorIssueRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/// Moves committed events from the event_outbox table to the EventListeners in batches. Delivery is at least
+/// once: a listener marks its event processed when it is done, an event whose listener did not finish (the
+/// node died, the listener threw) is claimed again once its lease ends, up to events.outbox.max-attempts times.
+/// No database transaction stays open while the listeners send their emails.
+@Component
+@Slf4j
+public class EventOutboxRelay {
+
+    @Autowired
+    private EventOutbox eventOutbox;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private HelpRequestEventCoalescer helpRequestCoalescer;
+
+    @Autowired
+    private HelpRequestorIssueRepository helpRequestorIssueRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${events.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${events.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${events.outbox.retention-ms:86400000}")
+    private long retentionMillis;
+
+    @Value("${events.outbox.rejected-retry-ms:1000}")
+    private long rejectedRetryMillis;
+
+    @Scheduled(fixedDelayString = "${events.outbox.poll-interval-ms:250}")
+    public void relay() {
+        List<EventOutbox.Claimed> batch;
+        do {
+            batch = eventOutbox.claim(batchSize);
+            for (EventOutbox.Claimed event : batch) {
+                if (event.attempts() > maxAttempts) {
+                    log.error("Giving up on {} event {} after {} attempts", event.type(), event.id(),
+                            event.attempts() - 1);
+                    eventOutbox.markFailed(event.id());
+                    meterRegistry.counter("events.outbox.failed", "type", event.type().name()).increment();
+                    continue;
+                }
+                publish(event);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${events.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        eventOutbox.deleteProcessedBefore(System.currentTimeMillis() - retentionMillis);
+    }
+
+    private void publish(EventOutbox.Claimed event) {
+        try {
+            switch (event.type()) {
+                // Repeated events of one help request are merged before they reach the listeners
+                case HELP_REQUEST_CREATED -> helpRequestCoalescer.submit(event.id(), event.aggregateId());
+                // An issue deleted since has nobody to notify about
+                case HELP_REQUESTOR_ISSUE_CREATED -> helpRequestorIssueRepository.findById(event.aggregateId())
+                        .ifPresentOrElse(issue -> eventPublisher.publishEvent(
+                                new HelpRequestorIssueCreatedEvent(this, issue, event.id())),
+                                () -> eventOutbox.markProcessed(event.id()));
+            }
+            meterRegistry.counter("events.outbox.relayed", "type", event.type().name()).increment();
+        } catch (RejectedExecutionException e) {
+            // The listener's executor is full, the event waits in the outbox instead of running on this thread
+            log.debug("Listener busy, postponing {} event {}", event.type(), event.id());
+            eventOutbox.postpone(event.id(), System.currentTimeMillis() + rejectedRetryMillis);
+        } catch (RuntimeException e) {
+            // The executor rejected it or the aggregate could not be loaded, try again on the next poll
+            log.warn("Could not relay {} event {}", event.type(), event.id(), e);
+            eventOutbox.release(event.id());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.reqsync.Reqsync.Events;
+
+// The events that go through the event_outbox table
+public enum EventOutboxType {
+    HELP_REQUEST_CREATED, // aggregate_id is a HelpRequest id
+    HELP_REQUESTOR_ISSUE_CREATED // aggregate_id is a RequestHelperIssue id
+}
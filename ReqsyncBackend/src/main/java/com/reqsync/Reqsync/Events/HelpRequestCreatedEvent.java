@@ -13,11 +13,17 @@ import org.springframework.context.ApplicationEvent;
 @Setter
 public class HelpRequestCreatedEvent extends ApplicationEvent {
     private final HelpRequest helpRequest;
+    private final Long outboxId; // The event_outbox row this event was relayed from, null when published directly
 
     public HelpRequestCreatedEvent(Object source, HelpRequest helpRequest) { // It contains the help request data so
                                                                              // that it can be accessed by the listener.
+        this(source, helpRequest, null);
+    }
+
+    public HelpRequestCreatedEvent(Object source, HelpRequest helpRequest, Long outboxId) {
         super(source);
         this.helpRequest = helpRequest;
+        this.outboxId = outboxId;
     }
 }
 
@@ -0,0 +1,122 @@
+package com.reqsync.Reqsync.Events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.Repository.HelpRequestRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/// Sits between EventOutboxRelay and the listeners for HELP_REQUEST_CREATED events. A help request whose status
+/// bounces back and forth produces one event per change, they are held here per help request id until no new
+/// one came for events.coalesce.window-ms (or events.coalesce.max-delay-ms passed since the first one) and then
+/// delivered as a single event carrying the latest state of the request.
+///
+/// The outbox rows stay claimed while they wait here, so a node that dies in the meantime loses nothing, their
+/// lease runs out and another node relays them. The window has to stay well below events.outbox.lease-ms.
+@Component
+@Slf4j
+public class HelpRequestEventCoalescer {
+
+    @Autowired
+    private EventOutbox eventOutbox;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private HelpRequestRepository helpRequestRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${events.coalesce.window-ms:2000}")
+    private long windowMillis;
+
+    @Value("${events.coalesce.max-delay-ms:10000}")
+    private long maxDelayMillis;
+
+    @Value("${events.outbox.rejected-retry-ms:1000}")
+    private long rejectedRetryMillis;
+
+    private final Map<Long, Pending> pending = new HashMap<>(); // By help request id
+
+    private static final class Pending {
+        private final List<Long> outboxIds = new ArrayList<>();
+        private final long firstSeen;
+        private long lastSeen;
+
+        private Pending(long now) {
+            this.firstSeen = now;
+            this.lastSeen = now;
+        }
+    }
+
+    /// Takes a claimed HELP_REQUEST_CREATED event. With a window of 0 it is delivered right away.
+    public void submit(long outboxId, long helpRequestId) {
+        if (windowMillis <= 0) {
+            deliver(helpRequestId, List.of(outboxId));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (pending) {
+            Pending entry = pending.computeIfAbsent(helpRequestId, id -> new Pending(now));
+            if (!entry.outboxIds.isEmpty()) {
+                meterRegistry.counter("events.coalesced", "type", EventOutboxType.HELP_REQUEST_CREATED.name())
+                        .increment();
+            }
+            entry.outboxIds.add(outboxId);
+            entry.lastSeen = now;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.coalesce.flush-interval-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        Map<Long, List<Long>> due = new HashMap<>();
+        synchronized (pending) {
+            Iterator<Map.Entry<Long, Pending>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Pending> entry = it.next();
+                Pending waiting = entry.getValue();
+                if (now - waiting.lastSeen >= windowMillis || now - waiting.firstSeen >= maxDelayMillis) {
+                    due.put(entry.getKey(), waiting.outboxIds);
+                    it.remove();
+                }
+            }
+        }
+        due.forEach(this::deliver); // Outside the lock, loading the help requests hits the database
+    }
+
+    // Publishes one event for the newest outbox row, the older ones are superseded by it
+    private void deliver(long helpRequestId, List<Long> outboxIds) {
+        long latest = outboxIds.get(outboxIds.size() - 1);
+        try {
+            helpRequestRepository.findById(helpRequestId).ifPresentOrElse(helpRequest -> {
+                eventPublisher.publishEvent(new HelpRequestCreatedEvent(this, helpRequest, latest));
+                for (Long superseded : outboxIds.subList(0, outboxIds.size() - 1)) {
+                    eventOutbox.markProcessed(superseded);
+                }
+            }, () -> outboxIds.forEach(eventOutbox::markProcessed)); // Deleted since, nobody to notify about
+        } catch (RejectedExecutionException e) {
+            // The listener's executor is full, the events wait in the outbox and come back through the relay
+            log.debug("Listener busy, postponing help request {} events {}", helpRequestId, outboxIds);
+            long retryAt = System.currentTimeMillis() + rejectedRetryMillis;
+            outboxIds.forEach(id -> eventOutbox.postpone(id, retryAt));
+        } catch (RuntimeException e) {
+            log.warn("Could not deliver help request {} events {}", helpRequestId, outboxIds, e);
+            outboxIds.forEach(eventOutbox::release);
+        }
+    }
+}
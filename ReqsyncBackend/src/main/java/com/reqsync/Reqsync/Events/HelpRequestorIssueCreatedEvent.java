@@ -11,10 +11,16 @@ import lombok.Setter;
 @Setter
 public class HelpRequestorIssueCreatedEvent extends ApplicationEvent {
     private final RequestHelperIssue helpRequestorIssue;
+    private final Long outboxId; // The event_outbox row this event was relayed from, null when published directly
 
     public HelpRequestorIssueCreatedEvent(Object source, RequestHelperIssue helpRequestorIssue) {
+        this(source, helpRequestorIssue, null);
+    }
+
+    public HelpRequestorIssueCreatedEvent(Object source, RequestHelperIssue helpRequestorIssue, Long outboxId) {
         super(source);
         this.helpRequestorIssue = helpRequestorIssue;
+        this.outboxId = outboxId;
     }
 
 }
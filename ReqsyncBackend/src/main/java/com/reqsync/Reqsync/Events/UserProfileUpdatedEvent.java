@@ -0,0 +1,16 @@
+package com.reqsync.Reqsync.Events;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+// Published when a user edits their profile, anything cached about the user is dropped once the change commits.
+@Getter
+public class UserProfileUpdatedEvent extends ApplicationEvent {
+    private final String email;
+
+    public UserProfileUpdatedEvent(Object source, String email) {
+        super(source);
+        this.email = email;
+    }
+}
@@ -0,0 +1,17 @@
+package com.reqsync.Reqsync.Events;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+// Published when the roles of a user change or the user is removed. Tokens issued before are no longer current
+// and anything cached about the user must be dropped once the change commits.
+@Getter
+public class UserRolesChangedEvent extends ApplicationEvent {
+    private final String email;
+
+    public UserRolesChangedEvent(Object source, String email) {
+        super(source);
+        this.email = email;
+    }
+}
@@ -11,11 +11,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.reqsync.Reqsync.CustomException.AlreadyUsedEmail;
+import com.reqsync.Reqsync.CustomException.LoginOverloaded;
 import com.reqsync.Reqsync.CustomException.MessageNotSended;
 import com.reqsync.Reqsync.CustomException.NoHeader;
 import com.reqsync.Reqsync.CustomException.NoIdexist;
 import com.reqsync.Reqsync.CustomException.NoRowsFound;
 import com.reqsync.Reqsync.CustomException.NoTableFound;
+import com.reqsync.Reqsync.CustomException.TooManyRequests;
 import com.reqsync.Reqsync.CustomException.UsersNotFound;
 import com.reqsync.Reqsync.CustomException.ValidationException;
 import com.reqsync.Reqsync.CustomException.WrongAuthenticationCredentials;
@@ -94,6 +96,20 @@ public class RestGlobaladvice {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    @ExceptionHandler(TooManyRequests.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(TooManyRequests ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "10").body(response);
+    }
+
+    @ExceptionHandler(LoginOverloaded.class)
+    public ResponseEntity<Map<String, Object>> handleLoginOverloaded(LoginOverloaded ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "2").body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
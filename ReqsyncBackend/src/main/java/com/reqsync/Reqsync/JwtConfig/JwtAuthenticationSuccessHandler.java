@@ -19,6 +19,9 @@ public class JwtAuthenticationSuccessHandler implements AuthenticationSuccessHan
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
             Authentication authentication) throws IOException, ServletException, java.io.IOException {
@@ -28,6 +31,7 @@ public class JwtAuthenticationSuccessHandler implements AuthenticationSuccessHan
 
         String token = jwtService.authentication(authRequest.getEmail() , authRequest.getPassword()); // Generate JWT for authenticated user
         response.setHeader("Authorization", "Bearer " + token); // Return JWT in response header
+        response.setHeader("Refresh-Token", refreshTokenService.issue(user.getUsername()));
         response.setStatus(HttpServletResponse.SC_OK);
         response.getWriter().write("{\"message\": \"Login successful\", \"token\": \"" + token + "\"}");
     }
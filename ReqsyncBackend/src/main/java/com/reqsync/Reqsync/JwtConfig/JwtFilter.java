@@ -5,14 +5,24 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.reqsync.Reqsync.Model.CustomUserDetails;
+
+import io.jsonwebtoken.Claims;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter { // This will run once before a request
@@ -22,34 +32,62 @@ public class JwtFilter extends OncePerRequestFilter { // This will run once befo
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    // Build the user from the token claims instead of loading it and its roles from the database per request
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         String authorizationHeader = request.getHeader("Authorization"); // Getting the header
         String username = null;
         String jwt = null;
+        Claims claims = null;
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) { // Checking the header that the
                                                                                         // header is not null \
                                                                                         // and also starts with the
                                                                                         // Bearer
             jwt = authorizationHeader.substring(7); // this will return the jwt tokenn after cuttibng the bearee string
-            username = jwtUtil.extractUsername(jwt); // This will extract the username or email in our case . this
-                                                     // method is dfefined in jwt util
+            // Verifies the signature and the expiry once, or takes the already verified claims from the cache
+            claims = jwtUtil.verify(jwt);
+            username = claims.getSubject(); // This will extract the username or email in our case
         }
         if (username != null) { // If the username is not null then it will extract the userdetsils from the
                                 // loadusername method like the name , password and the authorities
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(jwt)) { // This will validate the token like the expiry
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails,
-                        userDetails.getPassword(),
-                        userDetails.getAuthorities());
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(auth); // Setting the auth for the upcoming filters
-                                                                            // to check that the user is authenticated
-                                                                            // or not
+            UserDetails userDetails = stateless ? fromClaims(username, claims)
+                    : userDetailsService.loadUserByUsername(username);
+            if (userDetails == null) { // The roles changed since the token was issued, it has to be renewed
+                chain.doFilter(request, response);
+                return;
             }
+
+            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails,
+                    userDetails.getPassword(),
+                    userDetails.getAuthorities());
+            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(auth); // Setting the auth for the upcoming filters
+                                                                        // to check that the user is authenticated
+                                                                        // or not
         }
         chain.doFilter(request, response); // Sending the request and the response to upcoming filters
     }
+
+    // The user with the roles of the token, or null when the token version is no longer current
+    private UserDetails fromClaims(String username, Claims claims) {
+        Integer version = claims.get("ver", Integer.class);
+        if (!tokenVersionService.isCurrent(username, version != null ? version : 0)) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        List<?> roles = claims.get("roles", List.class);
+        if (roles != null) {
+            for (Object role : roles) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+        }
+        return new CustomUserDetails(username, "", authorities, null); // No password, the token was the credential
+    }
 }
\ No newline at end of file
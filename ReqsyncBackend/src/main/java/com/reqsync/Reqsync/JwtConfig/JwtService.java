@@ -3,11 +3,10 @@ package com.reqsync.Reqsync.JwtConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
 import com.reqsync.Reqsync.CustomException.WrongAuthenticationCredentials;
+import com.reqsync.Reqsync.Service.UserDetailsServicImp;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,7 +17,7 @@ public class JwtService {
     @Autowired
     private AuthenticationManager authenticationManager;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsServicImp userDetailsService; /// Tokens are built from the database, not the cache.
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -29,8 +28,8 @@ public class JwtService {
                 // Standard authentication
                 org.springframework.security.core.Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email, password));
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                String jwtToken = jwtUtil.generateToken(userDetails);
+                UserDetailsServicImp.TokenSubject subject = userDetailsService.loadForToken(email);
+                String jwtToken = jwtUtil.generateToken(subject.userDetails(), subject.tokenVersion());
 
                 if (authentication.isAuthenticated()) {
                     return jwtToken;
@@ -39,12 +38,9 @@ public class JwtService {
                 }
             } else {
                 // OAuth2 login, no password required
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email); // No need to check for the password of the user directly give the access 
-                if (userDetails == null) {
-                    throw new RuntimeException("User not found for email: " + email);
-                }
+                UserDetailsServicImp.TokenSubject subject = userDetailsService.loadForToken(email); // No need to check for the password of the user directly give the access 
                 // Directly generate JWT
-                return jwtUtil.generateToken(userDetails);
+                return jwtUtil.generateToken(subject.userDetails(), subject.tokenVersion());
             }
         } catch (Exception e) {
             throw new RuntimeException("Something might be wrong in email or password", e);
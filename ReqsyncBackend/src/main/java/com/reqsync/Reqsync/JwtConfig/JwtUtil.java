@@ -6,14 +6,18 @@ import java.util.Map;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtil {
@@ -21,33 +25,51 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
+    @Autowired
+    private JwtClaimsCache claimsCache;
+
+    private SecretKey signingKey;
+    private JwtParser parser; // Immutable and thread safe, built once with the key
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes()); // Coverting the secret key with hmac algo
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes()); // Coverting the secret key with hmac algo
+        return signingKey;
+    }
+
+    /// Verifies the signature and the expiry of the token once and returns its claims, from the cache when the
+    /// same token was verified before. Throws a JwtException for an invalid or expired token.
+    public Claims verify(String token) throws JwtException {
+        String digest = JwtClaimsCache.digest(token);
+        Claims claims = claimsCache.get(digest);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload(); // Also rejects an expired token
+            claimsCache.put(digest, claims);
+        }
+        return claims;
     }
 
     public String extractUsername(String token) { // this will take the jwt token and extract the claims and return the
                                                   // subject means the username or email
-        Claims claims = extractAllClaims(token);
+        Claims claims = verify(token);
         return claims.getSubject();
     }
 
     public Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verify(token).getExpiration();
     }
 
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
-    public String generateToken(UserDetails user) { // We are
+    public String generateToken(UserDetails user, int tokenVersion) { // We are
                                                     // generating
                                                     // token here
                                                     // while
@@ -59,6 +81,7 @@ public class JwtUtil {
                                                                                            // short hand method to call
                                                                                            // a function of a class
         claims.put("roles", userRole.stream().map(GrantedAuthority::getAuthority).toList());
+        claims.put("ver", tokenVersion); // The token stops being current when the roles change, see TokenVersionService
         return createToken(claims, user); // retruning the create token method with claims
     }
 
@@ -0,0 +1,106 @@
+package com.reqsync.Reqsync.JwtConfig;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.reqsync.Reqsync.CustomException.WrongAuthenticationCredentials;
+import com.reqsync.Reqsync.Service.UserDetailsServicImp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/// Rotating refresh tokens, see RefreshToken. A login gets one next to its access token, and /api/auth/refresh
+/// trades it for a new access token and the next refresh token without checking the password again, so an
+/// app that stays signed in costs one SHA-256 and a couple of indexed statements per hour instead of a BCrypt
+/// verification.
+///
+/// A token can be used once. When a used token is presented again, either the client or an attacker has a
+/// copy, the whole family is revoked and the user has to log in again.
+@Component
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public record Refreshed(String accessToken, String refreshToken) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserDetailsServicImp userDetailsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh.ttl-ms:2592000000}")
+    private long ttlMillis; // 30 days by default
+
+    /// A new refresh token starting a new family, for a login.
+    public String issue(String email) {
+        return insert(email, UUID.randomUUID().toString());
+    }
+
+    /// Uses the refresh token up and returns a new access token and the next refresh token.
+    @Transactional(noRollbackFor = WrongAuthenticationCredentials.class) // Keep the revocation of a reused family
+    public Refreshed refresh(String refreshToken) {
+        String hash = JwtClaimsCache.digest(refreshToken);
+        long now = System.currentTimeMillis();
+        int used = jdbcTemplate.update(
+                "UPDATE refresh_tokens SET used_at = ? WHERE token_hash = ? AND used_at IS NULL AND expires_at > ?",
+                now, hash, now);
+        List<Object[]> rows = jdbcTemplate.query("SELECT user_email, family, used_at FROM refresh_tokens WHERE token_hash = ?",
+                (rs, i) -> new Object[] { rs.getString("user_email"), rs.getString("family"), rs.getObject("used_at") },
+                hash);
+        if (rows.isEmpty()) {
+            throw new WrongAuthenticationCredentials("Invalid refresh token, please log in again");
+        }
+        String email = (String) rows.get(0)[0];
+        String family = (String) rows.get(0)[1];
+        if (used == 0) {
+            if (rows.get(0)[2] != null) { // Used before, whoever presents it second has a stolen copy
+                int revoked = jdbcTemplate.update("DELETE FROM refresh_tokens WHERE family = ?", family);
+                log.warn("Refresh token reused for {}, revoked {} tokens of its family", email, revoked);
+                meterRegistry.counter("auth.refresh.reused").increment();
+            }
+            throw new WrongAuthenticationCredentials("Refresh token expired or already used, please log in again");
+        }
+        // Read from the database, not the UserDetailsCache, so the new token has the roles of its version
+        UserDetailsServicImp.TokenSubject subject = userDetailsService.loadForToken(email);
+        String accessToken = jwtUtil.generateToken(subject.userDetails(), subject.tokenVersion());
+        meterRegistry.counter("auth.refresh.issued").increment();
+        return new Refreshed(accessToken, insert(email, family));
+    }
+
+    /// Revokes every refresh token of the user, when the account is deleted.
+    public void revokeAll(String email) {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_email = ?", email);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-ms:3600000}")
+    public void deleteExpired() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at <= ?", System.currentTimeMillis());
+    }
+
+    private String insert(String email, String family) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        jdbcTemplate.update("INSERT INTO refresh_tokens (token_hash, family, user_email, expires_at) VALUES (?, ?, ?, ?)",
+                JwtClaimsCache.digest(token), family, email, System.currentTimeMillis() + ttlMillis);
+        return token;
+    }
+}
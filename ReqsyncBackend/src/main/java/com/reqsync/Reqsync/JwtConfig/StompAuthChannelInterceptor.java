@@ -0,0 +1,84 @@
+package com.reqsync.Reqsync.JwtConfig;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.CustomException.WrongAuthenticationCredentials;
+import com.reqsync.Reqsync.Notification.StompNotificationChannel;
+import com.reqsync.Reqsync.Notification.VolunteerTopics;
+
+import io.jsonwebtoken.JwtException;
+
+// Authenticates the STOMP CONNECT frame with the same Bearer token the REST api uses. Browsers cannot set
+// headers on the WebSocket handshake, so the token is sent as a native header of the CONNECT frame and the
+// email becomes the session user that /user/queue/notifications is routed to.
+//
+// Later frames are authorized too. Clients may only SEND to /app, the broker destinations are written by the
+// server alone, and may only SUBSCRIBE to their own queue and to the topics of their volunteer profile.
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String APP_PREFIX = "/app/";
+    private static final String OWN_QUEUE = "/user" + StompNotificationChannel.USER_DESTINATION;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private VolunteerTopics volunteerTopics;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String authorizationHeader = accessor.getFirstNativeHeader("Authorization");
+            if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+                throw new WrongAuthenticationCredentials("Missing Bearer token on STOMP CONNECT");
+            }
+            String jwt = authorizationHeader.substring(7);
+            String email;
+            try {
+                email = jwtUtil.verify(jwt).getSubject();
+            } catch (JwtException e) {
+                throw new WrongAuthenticationCredentials("Invalid or expired token");
+            }
+            if (email == null) {
+                throw new WrongAuthenticationCredentials("Invalid or expired token");
+            }
+            accessor.setUser(new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.NO_AUTHORITIES));
+        } else if (accessor != null && StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(APP_PREFIX)) {
+                throw new AccessDeniedException("Clients can only send to /app destinations");
+            }
+        } else if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            if (accessor.getUser() == null || !maySubscribe(accessor.getUser().getName(), accessor.getDestination())) {
+                throw new AccessDeniedException("Not allowed to subscribe to " + accessor.getDestination());
+            }
+        }
+        return message;
+    }
+
+    private boolean maySubscribe(String email, String destination) {
+        if (destination == null) {
+            return false;
+        }
+        if (destination.equals(OWN_QUEUE)) {
+            return true; // Resolved to this session's queue by the user destination handler
+        }
+        if (destination.startsWith(StompNotificationChannel.TOPIC_PREFIX)) {
+            String topic = destination.substring(StompNotificationChannel.TOPIC_PREFIX.length());
+            return volunteerTopics.topicsFor(email).contains(topic);
+        }
+        return false; // Direct /queue destinations belong to other sessions
+    }
+}
@@ -0,0 +1,92 @@
+package com.reqsync.Reqsync.JwtConfig;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.reqsync.Reqsync.Events.UserRolesChangedEvent;
+
+/// The token version of each user, signup_users.token_version. Every token carries the version it was issued
+/// with as its ver claim, and the version is bumped whenever the roles of the user change. In stateless mode
+/// (jwt.stateless) the roles are taken from the token, so a token whose version is no longer current is refused.
+///
+/// The versions are cached for jwt.token-version.cache-ms: a role change made on this instance is seen at once,
+/// one made on another instance within that time. A user is read at most once per period instead of loading
+/// the user and its roles on every request.
+@Component
+public class TokenVersionService {
+
+    private record Cached(int version, long loadedAt) {
+    }
+
+    private static final int NO_USER = -1;
+
+    private final Map<String, Cached> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${jwt.token-version.cache-ms:5000}")
+    private long cacheMillis;
+
+    @Value("${jwt.token-version.cache-max-size:10000}")
+    private int maxSize;
+
+    /// The current version of the user from the database, 0 for an unknown user.
+    public int loadVersion(String email) {
+        int version = queryVersion(email);
+        return version == NO_USER ? 0 : version;
+    }
+
+    /// Whether a token issued with this version is still current for the user.
+    public boolean isCurrent(String email, int tokenVersion) {
+        long now = System.currentTimeMillis();
+        Cached cached = versions.get(email);
+        if (cached == null || now - cached.loadedAt >= cacheMillis) {
+            cached = new Cached(queryVersion(email), now);
+            if (versions.size() >= maxSize && !versions.containsKey(email)) {
+                evict(now);
+            }
+            versions.put(email, cached);
+        }
+        return cached.version != NO_USER && cached.version == tokenVersion;
+    }
+
+    /// Bumps the version of the user in the caller's transaction, so the tokens issued so far stop being
+    /// current, and publishes UserRolesChangedEvent.
+    public void rolesChanged(String email) {
+        jdbcTemplate.update("UPDATE signup_users SET token_version = token_version + 1 WHERE email = ?", email);
+        eventPublisher.publishEvent(new UserRolesChangedEvent(this, email));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolesChanged(UserRolesChangedEvent event) {
+        versions.remove(event.getEmail()); // Read again on the next request, after the commit
+    }
+
+    private int queryVersion(String email) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT token_version FROM signup_users WHERE email = ?", Integer.class, email);
+        return rows.isEmpty() || rows.get(0) == null ? NO_USER : rows.get(0);
+    }
+
+    private void evict(long now) {
+        versions.values().removeIf(cached -> now - cached.loadedAt >= cacheMillis);
+        Iterator<String> it = versions.keySet().iterator();
+        while (versions.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.reqsync.Reqsync.Mail;
+
+/// Stops calling a failing dependency for a while instead of letting every caller wait for its timeout.
+///
+/// - CLOSED: calls go through. After failureThreshold failures in a row the breaker opens.
+/// - OPEN: calls are refused until openMillis passed, then the breaker is half open.
+/// - HALF_OPEN: up to halfOpenProbes calls go through as probes. A successful probe closes the breaker, a
+/// failed one opens it again for another openMillis.
+///
+/// Thread safe, the state changes are rare so a monitor is enough.
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, int halfOpenProbes) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /// Whether a call may go through now. Every permitted call must be followed by onSuccess() or onFailure().
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                // A probe can go through, fall into the half open case
+            case HALF_OPEN:
+            default:
+                if (probesInFlight >= halfOpenProbes) {
+                    return false;
+                }
+                probesInFlight++;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probesInFlight = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            return State.HALF_OPEN; // The next tryAcquire() lets a probe through
+        }
+        return state;
+    }
+
+    /// When an open breaker lets the next probe through, for callers that want to come back then.
+    public synchronized long getRetryAt() {
+        return state == State.OPEN ? openedAt + openMillis : System.currentTimeMillis();
+    }
+}
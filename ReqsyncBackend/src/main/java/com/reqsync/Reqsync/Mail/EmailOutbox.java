@@ -0,0 +1,145 @@
+package com.reqsync.Reqsync.Mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/// Reads and writes the email_outbox and email_dead_letter tables, see EmailOutboxEntry. Like EventOutbox it
+/// uses plain JDBC so a claim is a single UPDATE.
+///
+/// Every change to a claimed email checks that its claim token is still the one of the claim. Once the lease
+/// ran out another worker may have claimed the email again, the first worker then must neither send it nor
+/// settle it.
+@Component
+public class EmailOutbox {
+
+    private static final String INSERT_SQL = "INSERT INTO email_outbox (recipient, bcc, sender, subject, body, created_at, next_attempt_at, attempts) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final int SUBJECT_LENGTH = 500; // Same as the subject column
+    private static final int ERROR_LENGTH = 1000; // Same as the last_error column
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${email.outbox.lease-ms:120000}")
+    private long leaseMillis;
+
+    public record Claimed(long id, OutgoingEmail email, int attempts, long createdAt, String claimToken) {
+    }
+
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    /// Queues the email, it is sent by EmailOutboxWorker. Joins the caller's transaction when there is one, so
+    /// an email about a change that is rolled back is never sent.
+    @Transactional
+    public void enqueue(OutgoingEmail email) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update(INSERT_SQL, row(email, now));
+    }
+
+    /// Queues several emails with one JDBC batch, see enqueue().
+    @Transactional
+    public void enqueueAll(List<OutgoingEmail> emails) {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(emails.size());
+        for (OutgoingEmail email : emails) {
+            rows.add(row(email, now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /// Leases up to limit emails that are due, the oldest first.
+    public List<Claimed> claim(int limit) {
+        String token = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        int claimed = jdbcTemplate.update("UPDATE email_outbox SET claim_token = ?, next_attempt_at = ?, attempts = attempts + 1 WHERE next_attempt_at <= ? ORDER BY id LIMIT ?",
+                token, now + leaseMillis, now, limit);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT id, recipient, bcc, sender, subject, body, attempts, created_at FROM email_outbox WHERE claim_token = ? ORDER BY id",
+                (rs, i) -> new Claimed(rs.getLong("id"), new OutgoingEmail(rs.getString("recipient"),
+                        rs.getString("sender"), rs.getString("subject"), rs.getString("body"),
+                        splitBcc(rs.getString("bcc"))),
+                        rs.getInt("attempts"), rs.getLong("created_at"), token),
+                token);
+    }
+
+    /// Extends the lease right before the email is sent. Returns false when the claim was lost, the email must
+    /// not be sent then.
+    public boolean renew(Claimed claimed) {
+        return jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ? WHERE id = ? AND claim_token = ?",
+                System.currentTimeMillis() + leaseMillis, claimed.id(), claimed.claimToken()) == 1;
+    }
+
+    public void markSent(Claimed claimed) {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE id = ? AND claim_token = ?", claimed.id(),
+                claimed.claimToken());
+    }
+
+    /// Puts the email back for another attempt at the given time.
+    public void retryAt(Claimed claimed, long nextAttemptAt, String error) {
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ?, claim_token = NULL, last_error = ? WHERE id = ? AND claim_token = ?",
+                nextAttemptAt, truncate(error, ERROR_LENGTH), claimed.id(), claimed.claimToken());
+    }
+
+    /// Puts the email back without counting the attempt, used when it was not tried at all (rate limited,
+    /// circuit open).
+    public void postpone(Claimed claimed, long nextAttemptAt, String reason) {
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ?, claim_token = NULL, attempts = attempts - 1, last_error = ? WHERE id = ? AND claim_token = ?",
+                nextAttemptAt, reason, claimed.id(), claimed.claimToken());
+    }
+
+    /// Puts a broadcast back for another attempt with fewer BCC recipients, used when the server refused some of
+    /// them.
+    public void retryWithBcc(Claimed claimed, List<String> bcc, long nextAttemptAt, String error) {
+        jdbcTemplate.update("UPDATE email_outbox SET bcc = ?, next_attempt_at = ?, claim_token = NULL, last_error = ? WHERE id = ? AND claim_token = ?",
+                joinBcc(bcc), nextAttemptAt, truncate(error, ERROR_LENGTH), claimed.id(), claimed.claimToken());
+    }
+
+    /// Gives up on the email, it moves to the dead letter table.
+    @Transactional
+    public void deadLetter(Claimed claimed, String error) {
+        int deleted = jdbcTemplate.update("DELETE FROM email_outbox WHERE id = ? AND claim_token = ?", claimed.id(),
+                claimed.claimToken());
+        if (deleted == 1) { // Otherwise another worker holds it now and settles it
+            deadLetter(claimed, claimed.email().bcc(), error);
+        }
+    }
+
+    /// Dead letters only the given BCC recipients of a broadcast, the outbox row stays.
+    public void deadLetter(Claimed claimed, List<String> bcc, String error) {
+        OutgoingEmail email = claimed.email();
+        jdbcTemplate.update("INSERT INTO email_dead_letter (outbox_id, recipient, bcc, sender, subject, body, attempts, last_error, created_at, failed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                claimed.id(), email.recipient(), joinBcc(bcc), email.sender(), email.subject(), email.html(),
+                claimed.attempts(), truncate(error, ERROR_LENGTH), claimed.createdAt(), System.currentTimeMillis());
+    }
+
+    private static Object[] row(OutgoingEmail email, long now) {
+        return new Object[] { email.recipient(), joinBcc(email.bcc()), email.sender(),
+                truncate(email.subject(), SUBJECT_LENGTH), email.html(), now, now };
+    }
+
+    // BCC recipients are stored one per line, null when there are none
+    private static String joinBcc(List<String> bcc) {
+        return bcc == null || bcc.isEmpty() ? null : String.join("\n", bcc);
+    }
+
+    private static List<String> splitBcc(String bcc) {
+        return bcc == null || bcc.isEmpty() ? List.of() : List.of(bcc.split("\n"));
+    }
+
+    private static String truncate(String value, int length) {
+        if (value == null || value.length() <= length) {
+            return value;
+        }
+        return value.substring(0, length);
+    }
+}
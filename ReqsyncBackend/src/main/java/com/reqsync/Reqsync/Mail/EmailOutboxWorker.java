@@ -0,0 +1,279 @@
+package com.reqsync.Reqsync.Mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.RateLimit.TokenBucket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/// Sends the emails of the email_outbox table on a small pool of worker threads, so SMTP latency and provider
+/// throttling never reach a request thread or an event listener.
+///
+/// - Due emails are claimed and split into batches of email.smtp.batch-size. A worker sends a whole batch over one
+/// pooled SMTP connection (see SmtpTransportPool), so a broadcast pays the connection handshake once per
+/// connection instead of once per email. email.outbox.workers batches are sent at the same time.
+/// - Every send takes a token from a bucket sized after the provider's limits (email.rate-limit.*), workers wait
+/// for a token instead of getting throttled by the server. A poll never claims more than the rate allows to send
+/// within half a lease, and the lease is renewed right before each send, so a slow batch is not claimed and sent
+/// a second time by another worker.
+/// - A failed send is retried with exponential backoff and some jitter, starting at email.outbox.backoff-initial-ms
+/// and capped at email.outbox.backoff-max-ms.
+/// - After email.outbox.max-attempts, or right away for a message that can never be sent, the email moves to the
+/// email_dead_letter table.
+/// - A CircuitBreaker stops the sends after email.circuit-breaker.failure-threshold connection failures in a row,
+/// so a degraded provider does not keep every worker waiting for its timeout. Emails refused by the open breaker
+/// are put back without using up an attempt, a probe is let through after email.circuit-breaker.open-ms.
+@Component
+@Slf4j
+public class EmailOutboxWorker {
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private SmtpTransportPool transportPool;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.outbox.workers:4}")
+    private int workers;
+
+    @Value("${email.smtp.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff-initial-ms:5000}")
+    private long backoffInitialMillis;
+
+    @Value("${email.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMillis;
+
+    @Value("${email.rate-limit.provider:${spring.mail.host:smtp}}")
+    private String provider;
+
+    @Value("${email.rate-limit.per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${email.rate-limit.burst:20}")
+    private double burst;
+
+    @Value("${email.circuit-breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${email.circuit-breaker.open-ms:30000}")
+    private long breakerOpenMillis;
+
+    @Value("${email.circuit-breaker.half-open-probes:1}")
+    private int breakerHalfOpenProbes;
+
+    private ThreadPoolTaskExecutor executor;
+    private TokenBucket rateLimit;
+    private Timer batchTimer;
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers); // One batch waiting per worker, the rest stays in the table
+        executor.setThreadNamePrefix("email-send-");
+        executor.initialize();
+        rateLimit = new TokenBucket(burst, ratePerSecond);
+        batchTimer = Timer.builder("email.send.batch").tag("provider", provider).register(meterRegistry);
+        circuitBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis, breakerHalfOpenProbes);
+        Gauge.builder("email.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half open").tag("provider", provider).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown(); // Claimed emails that are not sent yet are picked up again once their lease ends
+    }
+
+    /// Claims as many due emails as the workers have room for and hands them over in batches.
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        int room = executor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (room == 0 || circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return;
+        }
+        List<EmailOutbox.Claimed> claimed = emailOutbox.claim((int) Math.min(room * batchSize, sendableWithinLease()));
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            List<EmailOutbox.Claimed> batch = claimed.subList(from, Math.min(claimed.size(), from + batchSize));
+            executor.execute(() -> sendBatch(batch));
+        }
+    }
+
+    // What the rate limit lets through in half a lease, the other half is slack for slow sends
+    private long sendableWithinLease() {
+        return Math.max(1, (long) (burst + ratePerSecond * emailOutbox.getLeaseMillis() / 2000.0));
+    }
+
+    private void sendBatch(List<EmailOutbox.Claimed> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        SmtpTransportPool.PooledTransport transport;
+        try {
+            transport = transportPool.borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Shutting down, the lease brings the emails back later
+            return;
+        }
+        try {
+            for (EmailOutbox.Claimed claimed : batch) {
+                send(transport, claimed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            transportPool.release(transport);
+            sample.stop(batchTimer);
+            meterRegistry.summary("email.send.batch.size", "provider", provider).record(batch.size());
+        }
+    }
+
+    private void send(SmtpTransportPool.PooledTransport transport, EmailOutbox.Claimed claimed)
+            throws InterruptedException {
+        MimeMessage message;
+        try {
+            message = toMimeMessage(claimed.email());
+        } catch (MessagingException e) {
+            deadLetter(claimed, e); // The message itself is broken, sending it again would fail the same way
+            return;
+        }
+        if (!rateLimit.acquire(1, TimeUnit.MINUTES)) {
+            emailOutbox.postpone(claimed, System.currentTimeMillis(), "Rate limited");
+            return;
+        }
+        if (!emailOutbox.renew(claimed)) { // Waiting for the rate limit took longer than the lease
+            log.warn("Lost the claim of email {}, another worker sends it", claimed.id());
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            emailOutbox.postpone(claimed, circuitBreaker.getRetryAt(), "Circuit open");
+            return;
+        }
+        try {
+            boolean reachable = false;
+            try {
+                transport.send(message);
+                reachable = true;
+            } catch (SendFailedException e) {
+                reachable = true; // The server is up, it only refused addresses
+                throw e;
+            } finally {
+                // Settles every permitted call, whatever it threw, or a half open breaker would wait for it forever
+                if (reachable) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+            emailOutbox.markSent(claimed);
+            meterRegistry.counter("email.outbox.sent", "provider", provider).increment();
+        } catch (SendFailedException e) {
+            if (claimed.email().bcc().isEmpty()) {
+                deadLetter(claimed, e); // The server refused the address
+            } else {
+                partiallyRefused(claimed, e);
+            }
+        } catch (MessagingException e) {
+            if (claimed.attempts() >= maxAttempts) {
+                deadLetter(claimed, e);
+            } else {
+                long delay = backoff(claimed.attempts());
+                log.warn("Sending email {} failed (attempt {}), retrying in {} ms: {}", claimed.id(),
+                        claimed.attempts(), delay, e.getMessage());
+                emailOutbox.retryAt(claimed, System.currentTimeMillis() + delay, e.getMessage());
+                meterRegistry.counter("email.outbox.retried", "provider", provider).increment();
+            }
+        }
+    }
+
+    // A broadcast chunk is not sent at all when the server refuses one of its addresses. The refused ones are
+    // dead lettered and the chunk is tried again right away with the others
+    private void partiallyRefused(EmailOutbox.Claimed claimed, SendFailedException e) {
+        List<String> refused = addresses(e.getInvalidAddresses());
+        List<String> remaining = new ArrayList<>(claimed.email().bcc());
+        remaining.removeAll(refused);
+        if (refused.isEmpty() || remaining.size() == claimed.email().bcc().size()) {
+            deadLetter(claimed, e); // Nothing to tell the good addresses from the bad ones
+            return;
+        }
+        emailOutbox.deadLetter(claimed, refused, e.getMessage());
+        meterRegistry.counter("email.outbox.dead", "provider", provider).increment(refused.size());
+        if (remaining.isEmpty()) {
+            emailOutbox.markSent(claimed);
+        } else {
+            emailOutbox.retryWithBcc(claimed, remaining, System.currentTimeMillis(), e.getMessage());
+        }
+    }
+
+    private static List<String> addresses(Address[] addresses) {
+        List<String> result = new ArrayList<>();
+        if (addresses != null) {
+            for (Address address : addresses) {
+                result.add(address instanceof InternetAddress internet ? internet.getAddress() : address.toString());
+            }
+        }
+        return result;
+    }
+
+    private MimeMessage toMimeMessage(OutgoingEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.recipient());
+        if (!email.bcc().isEmpty()) {
+            helper.setBcc(email.bcc().toArray(String[]::new));
+        }
+        if (email.sender() != null) {
+            helper.setFrom(email.sender());
+        }
+        helper.setSubject(email.subject());
+        helper.setText(email.html(), true);
+        return message;
+    }
+
+    // initial * 2^(attempt - 1), capped, with up to 20% jitter so retries of a burst do not line up again
+    private long backoff(int attempt) {
+        long delay = backoffInitialMillis << Math.min(attempt - 1, 30);
+        if (delay <= 0 || delay > backoffMaxMillis) {
+            delay = backoffMaxMillis;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private void deadLetter(EmailOutbox.Claimed claimed, Exception e) {
+        log.error("Giving up on email {} to {} after {} attempts", claimed.id(), claimed.email().recipient(),
+                claimed.attempts(), e);
+        emailOutbox.deadLetter(claimed, e.getMessage());
+        meterRegistry.counter("email.outbox.dead", "provider", provider).increment();
+    }
+}
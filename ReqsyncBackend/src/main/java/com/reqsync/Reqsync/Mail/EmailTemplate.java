@@ -0,0 +1,114 @@
+package com.reqsync.Reqsync.Mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// An HTML email template compiled once into its static text chunks and the slots between them, so rendering
+/// is a single pass that appends chunks and escaped values to a reused per-thread buffer. No format string is
+/// parsed and no intermediate strings are built per recipient.
+///
+/// A slot is written {{name}} in the template, the names are given to compile() in the order render() takes the
+/// values, a name can be used more than once. Values are HTML escaped, except in {{{name}}} slots which take
+/// HTML rendered by another template.
+public final class EmailTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024; // A buffer that grew past this is not kept
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final String[] chunks; // chunks[i] comes before slot i, the last chunk comes after the last slot
+    private final int[] slots; // Index of the value rendered in each slot
+    private final boolean[] raw; // Slots written as is, without escaping
+    private final int valueCount;
+    private final int sizeHint;
+
+    private EmailTemplate(String[] chunks, int[] slots, boolean[] raw, int valueCount) {
+        this.chunks = chunks;
+        this.slots = slots;
+        this.raw = raw;
+        this.valueCount = valueCount;
+        int size = 0;
+        for (String chunk : chunks) {
+            size += chunk.length();
+        }
+        this.sizeHint = size;
+    }
+
+    public static EmailTemplate compile(String source, String... valueNames) {
+        List<String> chunks = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        List<String> names = List.of(valueNames);
+        int from = 0;
+        int open;
+        while ((open = source.indexOf("{{", from)) >= 0) {
+            boolean unescaped = source.startsWith("{{{", open);
+            String closing = unescaped ? "}}}" : "}}";
+            int close = source.indexOf(closing, open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed slot at " + open);
+            }
+            String name = source.substring(open + closing.length(), close).trim();
+            int index = names.indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown slot " + name);
+            }
+            chunks.add(source.substring(from, open));
+            slots.add(index);
+            raw.add(unescaped);
+            from = close + closing.length();
+        }
+        chunks.add(source.substring(from));
+        boolean[] rawSlots = new boolean[raw.size()];
+        for (int i = 0; i < rawSlots.length; i++) {
+            rawSlots[i] = raw.get(i);
+        }
+        return new EmailTemplate(chunks.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray(),
+                rawSlots, valueNames.length);
+    }
+
+    /// Renders the template with the values in the order of the names given to compile(). A null value renders
+    /// as nothing, any other value as its escaped toString().
+    public String render(Object... values) {
+        if (values.length != valueCount) {
+            throw new IllegalArgumentException("Expected " + valueCount + " values, got " + values.length);
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(sizeHint + 256);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(chunks[i]);
+            Object value = values[slots[i]];
+            if (value != null && raw[i]) {
+                out.append(value);
+            } else if (value != null) {
+                escape(value.toString(), out);
+            }
+        }
+        out.append(chunks[slots.length]);
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove(); // Do not keep a huge buffer alive on the thread because of one big email
+        }
+        return html;
+    }
+
+    static void escape(String value, StringBuilder out) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+}
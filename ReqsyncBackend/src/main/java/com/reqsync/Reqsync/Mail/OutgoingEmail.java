@@ -0,0 +1,16 @@
+package com.reqsync.Reqsync.Mail;
+
+import java.util.List;
+
+/// One email as stored in the email_outbox table. The sender is null for the mail server's default sender. bcc
+/// is only used by broadcasts, where one message reaches a chunk of recipients that do not see each other.
+public record OutgoingEmail(String recipient, String sender, String subject, String html, List<String> bcc) {
+
+    public OutgoingEmail(String recipient, String sender, String subject, String html) {
+        this(recipient, sender, subject, html, List.of());
+    }
+
+    public OutgoingEmail withBcc(List<String> bcc) {
+        return new OutgoingEmail(recipient, sender, subject, html, bcc);
+    }
+}
@@ -0,0 +1,158 @@
+package com.reqsync.Reqsync.Mail;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/// A few long lived SMTP connections shared by the email workers. JavaMailSender.send() opens and closes a
+/// connection (TCP, TLS and AUTH handshakes) on every call, which dominates the cost of a broadcast. Here a
+/// connection is kept open and reused until it sent email.smtp.max-messages-per-connection messages (most
+/// servers cap this) or stayed idle for email.smtp.idle-timeout-ms.
+///
+/// The connection settings (host, port, credentials, JavaMail properties) are the ones of the JavaMailSenderImpl
+/// Spring Boot configures from spring.mail.*.
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.outbox.workers:4}")
+    private int size; // One connection per worker thread
+
+    @Value("${email.smtp.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${email.smtp.idle-timeout-ms:30000}")
+    private long idleTimeoutMillis;
+
+    @Value("${email.smtp.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    private JavaMailSenderImpl sender;
+    private String protocol;
+    private Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+
+    /// One SMTP connection borrowed from the pool. Connects lazily and reconnects after a failure.
+    public final class PooledTransport {
+        private Transport transport;
+        private int sent;
+        private long lastUsed;
+        private boolean broken;
+
+        public void send(MimeMessage message) throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                connect();
+            }
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges(); // Sets the Message-ID, like JavaMailSenderImpl does
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                sent++;
+            } catch (MessagingException e) {
+                // A refused address leaves the connection usable, anything else may not have
+                broken = !(e instanceof SendFailedException);
+                if (broken) {
+                    close();
+                }
+                throw e;
+            }
+        }
+
+        private void connect() throws MessagingException {
+            close();
+            transport = sender.getSession().getTransport(protocol);
+            transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            sent = 0;
+            broken = false;
+            meterRegistry.counter("email.smtp.connections.opened").increment();
+        }
+
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing an SMTP connection failed", e);
+            }
+            transport = null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            throw new IllegalStateException("Pooled SMTP delivery needs the JavaMailSenderImpl configured by spring.mail.*");
+        }
+        sender = impl;
+        permits = new Semaphore(size);
+        // JavaMailSenderImpl falls back to smtp the same way when no protocol is set
+        protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+        // JavaMail waits forever on a stalled server by default, bound it unless spring.mail.properties does
+        for (String timeout : new String[] { "connectiontimeout", "timeout", "writetimeout" }) {
+            sender.getJavaMailProperties().putIfAbsent("mail." + protocol + "." + timeout, String.valueOf(timeoutMillis));
+        }
+    }
+
+    /// Takes a connection, waiting for one when every connection is in use.
+    public PooledTransport borrow() throws InterruptedException {
+        permits.acquire();
+        PooledTransport transport = idle.pollFirst(); // The most recently used one is the most likely to be alive
+        return transport != null ? transport : new PooledTransport();
+    }
+
+    public void release(PooledTransport transport) {
+        if (transport.broken || transport.sent >= maxMessagesPerConnection) {
+            transport.close();
+        }
+        transport.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(transport);
+        permits.release();
+    }
+
+    @Scheduled(fixedDelayString = "${email.smtp.idle-timeout-ms:30000}")
+    public void closeIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledTransport> it = idle.descendingIterator(); // Least recently used first
+        while (it.hasNext()) {
+            PooledTransport transport = it.next();
+            if (transport.lastUsed < cutoff && idle.removeLastOccurrence(transport)) {
+                transport.close();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            transport.close();
+        }
+    }
+}
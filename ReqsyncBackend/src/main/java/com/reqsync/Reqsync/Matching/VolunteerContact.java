@@ -0,0 +1,6 @@
+package com.reqsync.Reqsync.Matching;
+
+/// What the fan-out needs to reach a matched volunteer, kept in VolunteerMatchIndex so no Volunteer entity has
+/// to be loaded for it. digest is true for volunteers that asked for digest emails.
+public record VolunteerContact(long id, String email, String name, boolean digest) {
+}
@@ -0,0 +1,376 @@
+package com.reqsync.Reqsync.Matching;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
+import com.reqsync.Reqsync.Entity.Volunteer;
+import com.reqsync.Reqsync.Notification.NotificationTopics;
+import com.reqsync.Reqsync.Repository.VolunteerRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/// In-memory inverted index of the volunteers, so the help request fan-out does not load every Volunteer (with
+/// its user, roles and element collections) on each event.
+///
+/// Every help type, normalized area (see NotificationTopics.normalizeArea) and skill term maps to a BitSet of
+/// volunteer ids, a match is the intersection of those sets. It is built once the application is ready and
+/// kept current by VolunteerService, changes are applied after their transaction commits.
+///
+/// Each instance has its own index and only sees the changes made through it. To pick up the changes of the
+/// other instances, the index is rebuilt from the database every volunteer.index.refresh-ms. The new index is
+/// read without blocking the matches, and local changes that commit during the rebuild are applied again on top.
+@Component
+@Slf4j
+public class VolunteerMatchIndex {
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    @Value("${volunteer.index.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<VolunterrTypes, BitSet> byType = new EnumMap<>(VolunterrTypes.class);
+    private final Map<String, BitSet> byArea = new HashMap<>();
+    private final Map<String, BitSet> bySkill = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final Map<Integer, Entry> entries = new HashMap<>(); // What each volunteer is indexed under
+    private final Map<String, Integer> idsByEmail = new HashMap<>();
+    private boolean loaded;
+    private List<Runnable> changesDuringRefresh; // Not null while refresh() reads the table
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            readAll(this::put);
+            loaded = true;
+            log.info("Volunteer match index built with {} volunteers in {} ms", entries.size(),
+                    System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /// Rebuilds the index from the database, so changes made through the other instances show up here.
+    @Scheduled(fixedDelayString = "${volunteer.index.refresh-ms:300000}", initialDelayString = "${volunteer.index.refresh-ms:300000}")
+    public void refresh() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringRefresh = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Entry> fresh = new ArrayList<>();
+        try {
+            readAll(fresh::add);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRefresh = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            idsByEmail.clear();
+            all.clear();
+            byType.clear();
+            byArea.clear();
+            bySkill.clear();
+            fresh.forEach(this::put);
+            changesDuringRefresh.forEach(Runnable::run); // They may have committed after their rows were read
+            changesDuringRefresh = null;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Volunteer match index refreshed with {} volunteers in {} ms", fresh.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    // Keyset pages of plain columns, no entity is loaded
+    private void readAll(Consumer<Entry> consumer) {
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = volunteerRepository.findIndexRowsAfter(afterId, PageRequest.ofSize(loadBatchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            Map<Long, List<VolunterrTypes>> types = new HashMap<>();
+            Map<Long, List<String>> skills = new HashMap<>();
+            List<Long> ids = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                ids.add((Long) row[0]);
+            }
+            for (Object[] row : volunteerRepository.findTypesByVolunteerIds(ids)) {
+                types.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((VolunterrTypes) row[1]);
+            }
+            for (Object[] row : volunteerRepository.findSkillsByVolunteerIds(ids)) {
+                List<String> names = skills.computeIfAbsent((Long) row[0], id -> new ArrayList<>());
+                if (row[1] instanceof Collection<?> list) {
+                    list.forEach(skill -> names.add((String) skill));
+                } else if (row[1] != null) {
+                    names.add((String) row[1]);
+                }
+            }
+            for (Object[] row : page) {
+                Long id = (Long) row[0];
+                VolunteerContact contact = new VolunteerContact(id, (String) row[1], (String) row[2],
+                        Boolean.TRUE.equals(row[4]));
+                consumer.accept(new Entry(contact, Set.copyOf(types.getOrDefault(id, List.of())),
+                        NotificationTopics.normalizeArea((String) row[3]),
+                        skillTerms(skills.getOrDefault(id, List.of()))));
+                afterId = id;
+            }
+        } while (page.size() == loadBatchSize);
+    }
+
+    /// The volunteers offering the given type of help in the given area. A null type matches every type.
+    public List<VolunteerContact> match(VolunterrTypes type, String area) {
+        return match(type, area, null);
+    }
+
+    /// The volunteers offering the given type of help in the given area that list at least one of the skill
+    /// terms. A null type or null (or empty) skills leave that criterion out.
+    public List<VolunteerContact> match(VolunterrTypes type, String area, Collection<String> skills) {
+        List<VolunteerContact> contacts = new ArrayList<>();
+        forEachPage(matchingIds(type, area, skills), 0, Integer.MAX_VALUE, contacts::addAll);
+        return contacts;
+    }
+
+    /// Hands the volunteers matching the type and area to the consumer in pages of at most pageSize, in id
+    /// order. Only one page of contacts exists at a time, so a fan-out to a large part of the table stays flat in
+    /// memory. The consumer runs without any lock held. Volunteers with an id up to afterId are skipped, so a
+    /// fan-out that was interrupted can go on after the last page it finished.
+    public void forEachPage(VolunterrTypes type, String area, long afterId, int pageSize,
+            Consumer<List<VolunteerContact>> consumer) {
+        forEachPage(matchingIds(type, area, null), afterId, pageSize, consumer);
+    }
+
+    /// Hands every volunteer to the consumer in pages of at most pageSize, see above.
+    public void forEachPage(long afterId, int pageSize, Consumer<List<VolunteerContact>> consumer) {
+        forEachPage(allIds(), afterId, pageSize, consumer);
+    }
+
+    private BitSet matchingIds(VolunterrTypes type, String area, Collection<String> skills) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet areaIds = byArea.get(NotificationTopics.normalizeArea(area));
+            if (areaIds == null) {
+                return new BitSet();
+            }
+            BitSet result = (BitSet) areaIds.clone();
+            if (type != null) {
+                result.and(byType.getOrDefault(type, new BitSet()));
+            }
+            if (skills != null && !skills.isEmpty()) {
+                BitSet anySkill = new BitSet();
+                for (String term : skillTerms(skills)) {
+                    BitSet ids = bySkill.get(term);
+                    if (ids != null) {
+                        anySkill.or(ids);
+                    }
+                }
+                result.and(anySkill);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet allIds() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return (BitSet) all.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The ids are a snapshot, a volunteer removed in the meantime is skipped
+    private void forEachPage(BitSet ids, long afterId, int pageSize, Consumer<List<VolunteerContact>> consumer) {
+        if (afterId >= Integer.MAX_VALUE) {
+            return;
+        }
+        int pageCapacity = Math.min(pageSize, ids.cardinality());
+        int next = ids.nextSetBit((int) Math.max(0, afterId + 1));
+        while (next >= 0) {
+            List<VolunteerContact> page = new ArrayList<>(pageCapacity);
+            lock.readLock().lock();
+            try {
+                while (next >= 0 && page.size() < pageSize) {
+                    Entry entry = entries.get(next);
+                    if (entry != null) {
+                        page.add(entry.contact());
+                    }
+                    next = next == Integer.MAX_VALUE ? -1 : ids.nextSetBit(next + 1);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+            }
+        }
+    }
+
+    /// Indexes the volunteer (again) once the current transaction commits. The entity is read right away,
+    /// while its collections can still be loaded.
+    public void indexAfterCommit(Volunteer volunteer) {
+        Entry entry = new Entry(
+                new VolunteerContact(volunteer.getId(), volunteer.getUser().getEmail(), volunteer.getName(),
+                        volunteer.isDigestMode()),
+                volunteer.getVolunteeringTypes() == null ? Set.of() : Set.copyOf(volunteer.getVolunteeringTypes()),
+                NotificationTopics.normalizeArea(volunteer.getArea()),
+                skillTerms(volunteer.getSkills() == null ? List.of() : volunteer.getSkills()));
+        afterCommit(() -> apply(() -> put(entry)));
+    }
+
+    public void removeAfterCommit(long volunteerId) {
+        afterCommit(() -> apply(() -> remove(Math.toIntExact(volunteerId))));
+    }
+
+    /// Removes the volunteer of the given user, if there is one. Used when the whole user is deleted.
+    public void removeByEmailAfterCommit(String email) {
+        afterCommit(() -> apply(() -> {
+            Integer id = idsByEmail.get(email);
+            if (id != null) {
+                remove(id);
+            }
+        }));
+    }
+
+    // Runs the change under the write lock, and keeps it for a refresh that is reading the table meanwhile
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringRefresh != null) {
+                changesDuringRefresh.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /// Lower cased words of the skills, so "First Aid" and "first-aid" match the same volunteers.
+    static Set<String> skillTerms(Collection<String> skills) {
+        Set<String> terms = new HashSet<>();
+        for (String skill : skills) {
+            if (skill == null) {
+                continue;
+            }
+            for (String term : skill.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!term.isEmpty()) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        load(); // An event came in before the application was ready
+    }
+
+    // Callers hold the write lock
+    private void put(Entry entry) {
+        int id = Math.toIntExact(entry.contact().id());
+        remove(id);
+        entries.put(id, entry);
+        idsByEmail.put(entry.contact().email(), id);
+        all.set(id);
+        for (VolunterrTypes type : entry.types()) {
+            byType.computeIfAbsent(type, key -> new BitSet()).set(id);
+        }
+        byArea.computeIfAbsent(entry.area(), key -> new BitSet()).set(id);
+        for (String term : entry.skillTerms()) {
+            bySkill.computeIfAbsent(term, key -> new BitSet()).set(id);
+        }
+    }
+
+    // Callers hold the write lock
+    private void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        idsByEmail.remove(entry.contact().email(), id);
+        all.clear(id);
+        for (VolunterrTypes type : entry.types()) {
+            clear(byType, type, id);
+        }
+        clear(byArea, entry.area(), id);
+        for (String term : entry.skillTerms()) {
+            clear(bySkill, term, id);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> index, K key, int id) {
+        BitSet ids = index.get(key);
+        if (ids != null) {
+            ids.clear(id);
+            if (ids.isEmpty()) {
+                index.remove(key); // Areas and skill terms come and go, do not keep empty sets around
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private record Entry(VolunteerContact contact, Set<VolunterrTypes> types, String area, Set<String> skillTerms) {
+    }
+}
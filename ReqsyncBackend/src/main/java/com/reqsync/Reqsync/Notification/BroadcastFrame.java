@@ -0,0 +1,66 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/// An SSE notification rendered once for many recipients.
+/// The event header and the JSON body (message and timestamp) are encoded a single time into immutable byte
+/// arrays shared by every recipient. Only the recipient's email is encoded per user and written between the
+/// shared body and the closing brace, so the client still receives the same {"message", "timestamp",
+/// "email"} object as a NotificationDto.
+public final class BroadcastFrame {
+
+    private static final DataWithMediaType CLOSING = new DataWithMediaType("}\n\n".getBytes(StandardCharsets.UTF_8),
+            MediaType.APPLICATION_JSON); // Closes the JSON object and ends the SSE event
+
+    private final String type;
+    private final long id;
+    private final DataWithMediaType header;
+    private final DataWithMediaType body;
+    private final ObjectMapper objectMapper;
+
+    private BroadcastFrame(String type, long id, byte[] header, byte[] body, ObjectMapper objectMapper) {
+        this.type = type;
+        this.id = id;
+        this.header = new DataWithMediaType(header, MediaType.TEXT_PLAIN);
+        this.body = new DataWithMediaType(body, MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    public static BroadcastFrame render(ObjectMapper objectMapper, String type, long id, String message,
+            long timestamp) {
+        try {
+            byte[] header = ("id:" + id + "\ndata:").getBytes(StandardCharsets.UTF_8);
+            byte[] body = ("{\"message\":" + objectMapper.writeValueAsString(message) + ",\"timestamp\":"
+                    + timestamp + ",\"email\":").getBytes(StandardCharsets.UTF_8);
+            return new BroadcastFrame(type, id, header, body, objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not render the notification", e);
+        }
+    }
+
+    /// The frame for one recipient, it shares every byte except the recipient's email.
+    public SseFrame forRecipient(String email) {
+        Set<DataWithMediaType> parts = new LinkedHashSet<>(8);
+        parts.add(header);
+        parts.add(body);
+        parts.add(new DataWithMediaType(overlay(email), MediaType.APPLICATION_JSON));
+        parts.add(CLOSING);
+        return new SseFrame(type, id, parts);
+    }
+
+    private byte[] overlay(String email) {
+        try {
+            return objectMapper.writeValueAsBytes(email); // Quoted and escaped JSON string
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not render the recipient", e);
+        }
+    }
+}
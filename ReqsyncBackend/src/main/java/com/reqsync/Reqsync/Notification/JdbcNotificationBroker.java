@@ -0,0 +1,263 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/// Default NotificationBroker, built on two tables of the existing MySQL schema so several nodes can run
+/// behind a load balancer without any extra service.
+///
+/// - notification_presence tells which node holds a connection of which user. Every node publishes the set of
+/// users connected to it on a fixed interval.
+/// - notification_outbox carries the notifications. A notification for users connected elsewhere becomes one
+/// row per target node, a topic publish becomes one row for every node. Every node polls the rows newer than
+/// the last one it processed and delivers the ones meant for it to its own clients.
+///
+/// Ids of rows committed out of order leave short gaps, the poller waits for a gap to fill for
+/// notification.broker.gap-timeout-ms before it moves past it, so a slow insert is not skipped.
+@Component
+@ConditionalOnProperty(name = "notification.broker", havingValue = "jdbc", matchIfMissing = true)
+@Slf4j
+public class JdbcNotificationBroker implements NotificationBroker {
+
+    private static final String KIND_USERS = "USERS";
+    private static final String KIND_TOPIC = "TOPIC";
+    private static final int IN_CLAUSE_CHUNK = 500;
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO notification_outbox (origin_node, target_node, kind, target, event_id, event_type, message, event_timestamp, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_OUTBOX_SQL = "SELECT id, origin_node, target_node, kind, target, event_id, event_type, message, event_timestamp FROM notification_outbox WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_PRESENCE_SQL = "SELECT email, node_id FROM notification_presence WHERE email IN (:emails) AND node_id <> :node AND updated_at > :fresh";
+    private static final String UPSERT_PRESENCE_SQL = "INSERT INTO notification_presence (email, node_id, updated_at) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE updated_at = VALUES(updated_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private LocalNotificationDelivery localDelivery;
+
+    @Value("${notification.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${notification.broker.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.broker.gap-timeout-ms:2000}")
+    private long gapTimeoutMillis;
+
+    @Value("${notification.broker.presence-ttl-ms:30000}")
+    private long presenceTtlMillis;
+
+    @Value("${notification.broker.retention-ms:300000}")
+    private long retentionMillis;
+
+    private String nodeId;
+    private long cursor = -1; // Every row up to this id is processed, -1 until the first poll
+    private final TreeSet<Long> processedAboveCursor = new TreeSet<>();
+    private long gapSince;
+    private Set<String> publishedPresence = Set.of();
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId;
+        log.info("Notification broker node id: {}", nodeId);
+    }
+
+    @Override
+    public Collection<String> forwardToUsers(Collection<String> emails, long id, String type, String message,
+            long timestamp) {
+        if (emails.isEmpty()) {
+            return emails;
+        }
+        Map<String, List<String>> emailsByNode = presenceElsewhere(emails);
+        Set<String> nowhere = new HashSet<>(emails);
+        emailsByNode.values().forEach(nowhere::removeAll);
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(emailsByNode.size());
+        emailsByNode.forEach((node, recipients) -> rows.add(new Object[] { nodeId, node, KIND_USERS,
+                String.join("\n", recipients), id, type, message, timestamp, now }));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, rows);
+        }
+        return nowhere;
+    }
+
+    @Override
+    public Set<String> connectedElsewhere(Collection<String> emails) {
+        Set<String> connected = new HashSet<>();
+        presenceElsewhere(emails).values().forEach(connected::addAll);
+        return connected;
+    }
+
+    @Override
+    public void forwardToTopic(String topic, long id, String message, long timestamp) {
+        jdbcTemplate.update(INSERT_OUTBOX_SQL, nodeId, null, KIND_TOPIC, topic, id, topic, message, timestamp,
+                System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${notification.broker.poll-interval-ms:500}")
+    public synchronized void poll() {
+        if (cursor < 0) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM notification_outbox", Long.class);
+            cursor = max != null ? max : 0; // Start from now, older rows were for the nodes running back then
+            return;
+        }
+        List<OutboxRow> rows = jdbcTemplate.query(SELECT_OUTBOX_SQL, (rs, i) -> new OutboxRow(rs.getLong("id"),
+                rs.getString("origin_node"), rs.getString("target_node"), rs.getString("kind"),
+                rs.getString("target"), rs.getLong("event_id"), rs.getString("event_type"),
+                rs.getString("message"), rs.getLong("event_timestamp")), cursor, batchSize);
+
+        for (OutboxRow row : rows) {
+            if (!processedAboveCursor.add(row.id())) {
+                continue; // Delivered in an earlier poll, the cursor is still waiting behind a gap
+            }
+            if (isForThisNode(row)) {
+                deliver(row);
+            }
+        }
+        advanceCursor();
+    }
+
+    /// Publishes which users are connected to this node, only the difference with the last run is written.
+    @Scheduled(fixedDelayString = "${notification.broker.presence-interval-ms:5000}")
+    public void publishPresence() {
+        Set<String> current = localDelivery.connectedUsers();
+        long now = System.currentTimeMillis();
+
+        List<Object[]> left = new ArrayList<>();
+        for (String email : publishedPresence) {
+            if (!current.contains(email)) {
+                left.add(new Object[] { email, nodeId });
+            }
+        }
+        if (!left.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM notification_presence WHERE email = ? AND node_id = ?", left);
+        }
+
+        List<Object[]> joined = new ArrayList<>();
+        for (String email : current) {
+            if (!publishedPresence.contains(email)) {
+                joined.add(new Object[] { email, nodeId, now });
+            }
+        }
+        if (!joined.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PRESENCE_SQL, joined);
+        }
+
+        jdbcTemplate.update("UPDATE notification_presence SET updated_at = ? WHERE node_id = ?", now, nodeId);
+        publishedPresence = current;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.broker.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("DELETE FROM notification_outbox WHERE created_at < ?", now - retentionMillis);
+        jdbcTemplate.update("DELETE FROM notification_presence WHERE updated_at < ?", now - presenceTtlMillis * 2);
+    }
+
+    @PreDestroy
+    public void leave() {
+        try {
+            jdbcTemplate.update("DELETE FROM notification_presence WHERE node_id = ?", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove the presence rows of node {}", nodeId, e);
+        }
+    }
+
+    /// The users among the given ones that are connected on other nodes, grouped by node.
+    private Map<String, List<String>> presenceElsewhere(Collection<String> emails) {
+        Map<String, List<String>> emailsByNode = new HashMap<>();
+        if (emails.isEmpty()) {
+            return emailsByNode;
+        }
+        List<String> all = new ArrayList<>(emails);
+        long fresh = System.currentTimeMillis() - presenceTtlMillis;
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("emails", all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)))
+                    .addValue("node", nodeId)
+                    .addValue("fresh", fresh);
+            namedJdbcTemplate.query(SELECT_PRESENCE_SQL, params, rs -> {
+                emailsByNode.computeIfAbsent(rs.getString("node_id"), node -> new ArrayList<>())
+                        .add(rs.getString("email"));
+            });
+        }
+        return emailsByNode;
+    }
+
+    private boolean isForThisNode(OutboxRow row) {
+        if (nodeId.equals(row.originNode())) {
+            return false; // The origin already delivered to its own clients
+        }
+        return row.targetNode() == null || nodeId.equals(row.targetNode());
+    }
+
+    private void deliver(OutboxRow row) {
+        try {
+            if (KIND_TOPIC.equals(row.kind())) {
+                localDelivery.publishToTopic(row.target(), row.eventId(), row.message(), row.eventTimestamp());
+            } else {
+                localDelivery.broadcast(Arrays.asList(row.target().split("\n")), row.eventId(), row.eventType(),
+                        row.message(), row.eventTimestamp());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not deliver forwarded notification {}", row.id(), e);
+        }
+    }
+
+    private void advanceCursor() {
+        while (processedAboveCursor.remove(cursor + 1)) {
+            cursor++;
+        }
+        if (processedAboveCursor.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > gapTimeoutMillis) {
+            cursor = processedAboveCursor.first() - 1; // The missing ids were rolled back, stop waiting for them
+            gapSince = 0;
+            advanceCursor();
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        String id = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+
+    private record OutboxRow(long id, String originNode, String targetNode, String kind, String target,
+            long eventId, String eventType, String message, long eventTimestamp) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/// Broker for a single node deployment, there is nobody to forward to.
+@Component
+@ConditionalOnProperty(name = "notification.broker", havingValue = "local")
+public class LocalNotificationBroker implements NotificationBroker {
+
+    @Override
+    public Collection<String> forwardToUsers(Collection<String> emails, long id, String type, String message,
+            long timestamp) {
+        return emails;
+    }
+
+    @Override
+    public Set<String> connectedElsewhere(Collection<String> emails) {
+        return Set.of();
+    }
+
+    @Override
+    public void forwardToTopic(String topic, long id, String message, long timestamp) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.Dto.NotificationDto;
+
+/// Delivers notifications to the clients connected to this node, over every NotificationChannel, and records
+/// them for Last-Event-ID replay. Used for notifications created here and for the ones other nodes forward
+/// through the NotificationBroker.
+@Component
+public class LocalNotificationDelivery {
+
+    @Autowired
+    private List<NotificationChannel> channels; /// Every transport a client can be connected with.
+
+    @Autowired
+    private ReplayBufferStore replayBuffers; /// The last events of each user and topic, for Last-Event-ID replay.
+
+    public int publishToTopic(String topic, long id, String message, long timestamp) {
+        replayBuffers.recordForTopic(topic, id, new NotificationDto(null, message, timestamp));
+        int delivered = 0;
+        for (NotificationChannel channel : channels) {
+            delivered += channel.publishToTopic(topic, id, message, timestamp);
+        }
+        return delivered;
+    }
+
+    public int broadcast(Collection<String> emails, long id, String type, String message, long timestamp) {
+        NotificationDto shared = new NotificationDto(null, message, timestamp);
+        for (String email : emails) {
+            replayBuffers.recordForUser(email, id, type, shared);
+        }
+        int delivered = 0;
+        for (NotificationChannel channel : channels) {
+            delivered += channel.broadcast(emails, id, type, message, timestamp);
+        }
+        return delivered;
+    }
+
+    public boolean isConnected(String email) {
+        for (NotificationChannel channel : channels) {
+            if (channel.isConnected(email)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> connectedUsers() {
+        Set<String> users = new HashSet<>();
+        for (NotificationChannel channel : channels) {
+            users.addAll(channel.connectedUsers());
+        }
+        return users;
+    }
+}
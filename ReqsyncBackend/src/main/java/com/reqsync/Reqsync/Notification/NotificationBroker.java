@@ -0,0 +1,21 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+import java.util.Set;
+
+/// Carries notifications to the other backend nodes, so a user connected to any node behind the load
+/// balancer is reached. The node that creates a notification delivers it to its own clients first and
+/// hands the rest to the broker.
+public interface NotificationBroker {
+
+    /// Forwards the notification to the nodes where the given users are connected and returns the users that
+    /// are connected on no other node.
+    Collection<String> forwardToUsers(Collection<String> emails, long id, String type, String message,
+            long timestamp);
+
+    /// Returns the given users that have a connection on another node.
+    Set<String> connectedElsewhere(Collection<String> emails);
+
+    /// Forwards a topic publish to every other node.
+    void forwardToTopic(String topic, long id, String message, long timestamp);
+}
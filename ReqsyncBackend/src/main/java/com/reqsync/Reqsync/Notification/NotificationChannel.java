@@ -0,0 +1,22 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+
+/// A transport that pushes notifications to connected clients. NotificationService hands every notification
+/// to all channels, a client is reached over whichever one it is connected with (SSE or WebSocket).
+public interface NotificationChannel {
+
+    /// Sends the message to the connections that subscribed to the topic on this channel and returns how many
+    /// accepted it.
+    int publishToTopic(String topic, long id, String message, long timestamp);
+
+    /// Sends the same message to many users. The channel renders the message once and shares it between
+    /// the recipients, only per user fields are encoded for each of them. Returns how many connections
+    /// accepted it.
+    int broadcast(Collection<String> emails, long id, String type, String message, long timestamp);
+
+    boolean isConnected(String email);
+
+    /// Emails of the users with at least one open connection on this channel.
+    Collection<String> connectedUsers();
+}
@@ -0,0 +1,12 @@
+package com.reqsync.Reqsync.Notification;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/// Compact notification payload sent over the WebSocket channel. Single letter keys keep every frame a few
+/// dozen bytes smaller than NotificationDto, which adds up when one connection receives many topics.
+public record NotificationFrame(
+        @JsonProperty("i") long id, // Event id, same sequence as the SSE event ids
+        @JsonProperty("t") String type, // "notification" or the topic the message was published to
+        @JsonProperty("m") String message,
+        @JsonProperty("s") long timestamp) {
+}
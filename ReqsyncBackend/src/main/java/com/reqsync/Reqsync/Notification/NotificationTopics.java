@@ -0,0 +1,60 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
+
+/// Builds the topic names used to route notifications.
+/// A volunteer joins one topic per volunteering type in their area (for example
+/// "help:MEDICAL_ASSISTANCE@delhi") plus the plain area topic ("area:delhi"). A help request is
+/// published to the topic of its help type and area, or to the area topic when the help type is not
+/// one of the known VolunterrTypes.
+public final class NotificationTopics {
+
+    private NotificationTopics() {
+    }
+
+    public static String normalizeArea(String area) {
+        if (area == null) {
+            return "";
+        }
+        return area.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /// Returns the VolunterrTypes matching the free text help type, or null when it does not match any.
+    public static VolunterrTypes parseHelpType(String helpType) {
+        if (helpType == null) {
+            return null;
+        }
+        try {
+            return VolunterrTypes.valueOf(helpType.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static String helpTopic(VolunterrTypes type, String area) {
+        return "help:" + type.name() + "@" + normalizeArea(area);
+    }
+
+    public static String areaTopic(String area) {
+        return "area:" + normalizeArea(area);
+    }
+
+    public static List<String> forVolunteer(Collection<VolunterrTypes> types, String area) {
+        List<String> topics = new ArrayList<>(types.size() + 1);
+        for (VolunterrTypes type : types) {
+            topics.add(helpTopic(type, area));
+        }
+        topics.add(areaTopic(area));
+        return topics;
+    }
+
+    public static String forHelpRequest(String helpType, String area) {
+        VolunterrTypes type = parseHelpType(helpType);
+        return type != null ? helpTopic(type, area) : areaTopic(area);
+    }
+}
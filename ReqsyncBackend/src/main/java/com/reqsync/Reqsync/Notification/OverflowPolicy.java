@@ -0,0 +1,8 @@
+package com.reqsync.Reqsync.Notification;
+
+/// What a subscriber's outbound queue does when a new frame arrives and the queue is already full.
+public enum OverflowPolicy {
+    DROP_OLDEST, // Drops the oldest queued frame to make room for the new one
+    COALESCE_BY_TYPE, // Replaces the queued frame of the same type, or drops the oldest one if there is none
+    DISCONNECT // Closes the connection, the client reconnects and catches up
+}
@@ -0,0 +1,96 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.Dto.NotificationDto;
+
+/// Hands out the SSE event ids and keeps a ReplayRingBuffer per connected user and per joined topic.
+/// Buffers are created when a user subscribes and are kept while the user (or a member of the topic) is
+/// connected and for a retention window after the last write, so a client that drops and comes back with
+/// Last-Event-ID is sent only the events it missed.
+@Component
+public class ReplayBufferStore {
+
+    // Seeded with the clock so ids keep growing across restarts and an old Last-Event-ID never hides new events
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    private final Map<String, ReplayRingBuffer> userBuffers = new ConcurrentHashMap<>();
+    private final Map<String, ReplayRingBuffer> topicBuffers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SseSubscriberRegistry subscriberRegistry;
+
+    @Autowired
+    private TopicSubscriptionRegistry topicRegistry;
+
+    @Value("${notification.sse.replay-capacity:32}")
+    private int capacity;
+
+    @Value("${notification.sse.replay-retention-ms:600000}")
+    private long retentionMillis;
+
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    /// Makes sure buffers exist for the user and topics, so events sent from now on can be replayed.
+    public void track(String email, Collection<String> topics) {
+        userBuffers.computeIfAbsent(email, key -> new ReplayRingBuffer(capacity));
+        topics.forEach(topic -> topicBuffers.computeIfAbsent(topic, key -> new ReplayRingBuffer(capacity)));
+    }
+
+    public void recordForUser(String email, long id, String type, NotificationDto payload) {
+        ReplayRingBuffer buffer = userBuffers.get(email); // Only users seen recently have a buffer
+        if (buffer != null) {
+            buffer.append(id, type, payload);
+        }
+    }
+
+    public void recordForTopic(String topic, long id, NotificationDto payload) {
+        ReplayRingBuffer buffer = topicBuffers.get(topic);
+        if (buffer != null) {
+            buffer.append(id, topic, payload);
+        }
+    }
+
+    /// Frames the user missed after lastEventId, from the user's own buffer and the buffers of its topics,
+    /// ordered by id.
+    public List<SseFrame> missedFrames(String email, Collection<String> topics, long lastEventId) {
+        List<SseFrame> frames = new ArrayList<>();
+        ReplayRingBuffer userBuffer = userBuffers.get(email);
+        if (userBuffer != null) {
+            userBuffer.forEachAfter(lastEventId, (id, type, payload) -> frames.add(SseFrame.of(type, id,
+                    payload.getEmail() != null ? payload // Broadcasts share one payload without recipient
+                            : new NotificationDto(email, payload.getMessage(), payload.getTimestamp()))));
+        }
+        for (String topic : topics) {
+            ReplayRingBuffer topicBuffer = topicBuffers.get(topic);
+            if (topicBuffer != null) {
+                topicBuffer.forEachAfter(lastEventId, (id, type, payload) -> frames.add(SseFrame.of(type, id,
+                        new NotificationDto(email, payload.getMessage(), payload.getTimestamp()))));
+            }
+        }
+        frames.sort(Comparator.comparingLong(SseFrame::id));
+        return frames;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sse.replay-retention-ms:600000}")
+    public void dropIdleBuffers() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        userBuffers.entrySet().removeIf(entry -> entry.getValue().getLastWriteMillis() < cutoff
+                && !subscriberRegistry.isConnected(entry.getKey()));
+        topicBuffers.entrySet().removeIf(entry -> entry.getValue().getLastWriteMillis() < cutoff
+                && topicRegistry.members(entry.getKey()).isEmpty());
+    }
+}
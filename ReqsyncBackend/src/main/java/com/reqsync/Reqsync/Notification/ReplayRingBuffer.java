@@ -0,0 +1,52 @@
+package com.reqsync.Reqsync.Notification;
+
+import com.reqsync.Reqsync.Dto.NotificationDto;
+
+/// Fixed size ring of the last notifications sent to one user or topic, kept so a reconnecting client can be
+/// sent only what it missed. The slots are plain arrays allocated once, appending never allocates.
+public class ReplayRingBuffer {
+
+    private final long[] ids;
+    private final String[] types;
+    private final NotificationDto[] payloads;
+    private int next; // Slot the next append writes to
+    private int size;
+    private volatile long lastWriteMillis = System.currentTimeMillis();
+
+    public ReplayRingBuffer(int capacity) {
+        this.ids = new long[capacity];
+        this.types = new String[capacity];
+        this.payloads = new NotificationDto[capacity];
+    }
+
+    public synchronized void append(long id, String type, NotificationDto payload) {
+        ids[next] = id;
+        types[next] = type;
+        payloads[next] = payload;
+        next = (next + 1) % ids.length;
+        if (size < ids.length) {
+            size++;
+        }
+        lastWriteMillis = System.currentTimeMillis();
+    }
+
+    /// Calls the visitor, oldest first, for every retained entry with an id greater than lastEventId.
+    public synchronized void forEachAfter(long lastEventId, Visitor visitor) {
+        int oldest = (next - size + ids.length) % ids.length;
+        for (int i = 0; i < size; i++) {
+            int slot = (oldest + i) % ids.length;
+            if (ids[slot] > lastEventId) {
+                visitor.visit(ids[slot], types[slot], payloads[slot]);
+            }
+        }
+    }
+
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long id, String type, NotificationDto payload);
+    }
+}
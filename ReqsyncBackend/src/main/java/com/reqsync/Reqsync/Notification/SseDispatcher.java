@@ -0,0 +1,61 @@
+package com.reqsync.Reqsync.Notification;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/// Small pool of threads that write queued frames to the SSE connections.
+/// Each SseSubscriber has at most one drain task waiting here at a time, so the task queue is bounded by the
+/// number of open connections.
+@Component
+public class SseDispatcher {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.sse.dispatcher-threads:4}")
+    private int threads;
+
+    @Value("${notification.sse.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${notification.sse.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("sse-dispatch-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void execute(Runnable drainTask) {
+        executor.execute(drainTask);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    void recordOverflow(OverflowPolicy policy) {
+        meterRegistry.counter("notification.sse.queue.overflows", "policy", policy.name()).increment();
+    }
+}
@@ -0,0 +1,16 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Set;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/// One SSE event waiting in a subscriber's queue. The event is built once when it is queued, the type is the
+/// key used by OverflowPolicy.COALESCE_BY_TYPE and the id is sent as the SSE event id so a reconnecting client
+/// can ask for what it missed with Last-Event-ID.
+public record SseFrame(String type, long id, Set<DataWithMediaType> data) {
+
+    public static SseFrame of(String type, long id, Object payload) {
+        return new SseFrame(type, id, SseEmitter.event().id(Long.toString(id)).data(payload).build());
+    }
+}
@@ -0,0 +1,83 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/// Sends an SSE comment frame to every open connection on a fixed interval.
+/// Comment frames are ignored by EventSource clients but force a write on the socket, so connections that
+/// are half open behind a proxy fail here instead of staying registered until their 1 hour timeout. The
+/// registry is walked shard by shard in batches and the dead connections of each batch are evicted together.
+/// Connections that are busy draining their queue are skipped, the drain itself detects a broken socket.
+@Component
+@Slf4j
+public class SseHeartbeatScheduler {
+
+    @Autowired
+    private SseSubscriberRegistry subscriberRegistry;
+
+    @Autowired
+    private SseNotificationChannel sseChannel;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.sse.heartbeat-batch-size:500}")
+    private int batchSize;
+
+    private Timer sweepTimer;
+    private Counter evictionCounter;
+
+    @PostConstruct
+    public void init() {
+        sweepTimer = Timer.builder("notification.sse.heartbeat.sweep")
+                .description("Time taken to send a heartbeat to every SSE connection")
+                .register(meterRegistry);
+        evictionCounter = Counter.builder("notification.sse.heartbeat.evictions")
+                .description("SSE connections evicted because the heartbeat could not be written")
+                .register(meterRegistry);
+        Gauge.builder("notification.sse.subscribers", subscriberRegistry, SseSubscriberRegistry::subscriberCount)
+                .description("Open SSE connections on this node")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sse.heartbeat-interval-ms:25000}")
+    public void sweep() {
+        long start = System.nanoTime();
+        int evicted = 0;
+        List<SseSubscriber> dead = new ArrayList<>();
+
+        for (int shard = 0; shard < subscriberRegistry.shardCount(); shard++) {
+            for (SseSubscriber subscriber : subscriberRegistry.snapshotShard(shard)) {
+                if (!subscriber.ping()) {
+                    dead.add(subscriber);
+                }
+                if (dead.size() >= batchSize) {
+                    evicted += sseChannel.evict(dead);
+                    dead.clear();
+                }
+            }
+        }
+        if (!dead.isEmpty()) {
+            evicted += sseChannel.evict(dead);
+        }
+
+        evictionCounter.increment(evicted);
+        sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (evicted > 0) {
+            log.debug("Heartbeat evicted {} dead SSE connections", evicted);
+        }
+    }
+}
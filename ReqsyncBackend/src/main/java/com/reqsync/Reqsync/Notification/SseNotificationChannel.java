@@ -0,0 +1,128 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/// Server-Sent Events channel, one SseEmitter per browser tab. It is the fallback for clients that do not
+/// open a WebSocket and the only channel that supports Last-Event-ID replay.
+@Component
+@Slf4j
+public class SseNotificationChannel implements NotificationChannel {
+
+    /// An SseEmitter is a Spring Framework class designed for Server-Sent Events
+    /// (SSE). It acts as a bridge between your server and client by holding an HTTP
+    /// connection open so the server can push updates to the client in real time.
+
+    @Autowired
+    private SseSubscriberRegistry subscriberRegistry; /// Sharded registry that stores every active SSE
+                                                      /// connection, many per user (one per tab or device).
+
+    @Autowired
+    private TopicSubscriptionRegistry topicRegistry; /// Which connected users listen to which help type / area
+                                                     /// topic.
+
+    @Autowired
+    private SseDispatcher dispatcher; /// Threads that write the queued frames of every connection.
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReplayBufferStore replayBuffers; /// Event ids and the last events of each user and topic, for
+                                             /// Last-Event-ID replay.
+
+    /// Opens a new connection for the user. When the client reconnects with the id of the last event it
+    /// received, the events it missed in the meantime are replayed first.
+    public SseEmitter subscribe(String email, List<String> topics, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(3600000L); // 1 hour timeout
+        SseSubscriber subscriber = new SseSubscriber(email, emitter, dispatcher.getQueueCapacity(),
+                dispatcher.getOverflowPolicy(), dispatcher, this::unsubscribe);
+        replayBuffers.track(email, topics); // Start remembering what is sent to this user and its topics
+        subscriberRegistry.register(subscriber);
+        topicRegistry.join(email, topics); // Volunteers join the topics of their help types and area
+        if (lastEventId != null) {
+            subscriber.prepend(replayBuffers.missedFrames(email, topics, lastEventId));
+        }
+        log.debug("The user : {} has been subscribed", email);
+        emitter.onCompletion(() -> {
+            unsubscribe(subscriber); /// Removes only this connection when it is closed, other tabs of the same
+                                     /// user stay open.
+        });
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber); // Removes the emitter from the map when the connection times out.
+        });
+        emitter.onError(e -> {
+            unsubscribe(subscriber);
+        });
+        return emitter;
+    }
+
+    @Override
+    public int publishToTopic(String topic, long id, String message, long timestamp) {
+        return broadcast(topicRegistry.members(topic), id, topic, message, timestamp);
+    }
+
+    /// Renders the event once into a BroadcastFrame and queues it on the connections of every recipient,
+    /// recipients without a connection cost a single registry lookup.
+    @Override
+    public int broadcast(Collection<String> emails, long id, String type, String message, long timestamp) {
+        BroadcastFrame frame = null;
+        int delivered = 0;
+        for (String email : emails) {
+            SseSubscriber[] subscribers = subscriberRegistry.subscribersFor(email);
+            if (subscribers.length == 0) {
+                continue;
+            }
+            if (frame == null) {
+                frame = BroadcastFrame.render(objectMapper, type, id, message, timestamp);
+            }
+            delivered += offer(subscribers, frame.forRecipient(email));
+        }
+        return delivered;
+    }
+
+    @Override
+    public boolean isConnected(String email) {
+        return subscriberRegistry.isConnected(email);
+    }
+
+    @Override
+    public Collection<String> connectedUsers() {
+        return subscriberRegistry.connectedUsers();
+    }
+
+    /// Drops connections found dead by the heartbeat in one pass and returns how many were removed.
+    public int evict(Collection<SseSubscriber> deadSubscribers) {
+        int removed = subscriberRegistry.unregisterAll(deadSubscribers);
+        for (SseSubscriber subscriber : deadSubscribers) {
+            String email = subscriber.getEmail();
+            topicRegistry.leaveAll(email, () -> subscriberRegistry.isConnected(email));
+        }
+        return removed;
+    }
+
+    private int offer(SseSubscriber[] subscribers, SseFrame frame) {
+        int accepted = 0;
+        for (SseSubscriber subscriber : subscribers) {
+            if (subscriber.offer(frame)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private void unsubscribe(SseSubscriber subscriber) {
+        if (subscriberRegistry.unregister(subscriber)) {
+            String email = subscriber.getEmail();
+            topicRegistry.leaveAll(email, () -> subscriberRegistry.isConnected(email));
+        }
+    }
+}
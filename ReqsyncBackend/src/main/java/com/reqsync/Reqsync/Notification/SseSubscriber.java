@@ -0,0 +1,204 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/// One open SSE connection with its own bounded outbound queue.
+/// Publishers only append to the queue and return, the SseDispatcher threads write the frames to the socket.
+/// A slow client therefore only fills its own queue (handled by the OverflowPolicy) and never blocks the
+/// thread that fans a notification out to thousands of users.
+public class SseSubscriber {
+
+    private static final int MAX_FRAMES_PER_DRAIN = 32; // Frames written before the thread is handed to another
+                                                        // subscriber
+
+    private final String email;
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final SseDispatcher dispatcher;
+    private final Consumer<SseSubscriber> onDisconnect;
+
+    private final ArrayDeque<SseFrame> queue; // Guarded by itself
+    private final ReentrantLock writeLock = new ReentrantLock(); // Held while writing to the emitter
+    private boolean scheduled; // True while a drain task is queued or running, guarded by queue
+    private volatile boolean closed;
+
+    public SseSubscriber(String email, SseEmitter emitter, int capacity, OverflowPolicy overflowPolicy,
+            SseDispatcher dispatcher, Consumer<SseSubscriber> onDisconnect) {
+        this.email = email;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.dispatcher = dispatcher;
+        this.onDisconnect = onDisconnect;
+        this.queue = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /// Queues the frame and makes sure a dispatcher thread will drain the queue. Returns false when the frame
+    /// was not accepted, either because the connection is closed or because the overflow policy disconnected it.
+    public boolean offer(SseFrame frame) {
+        boolean schedule;
+        boolean overflowDisconnect = false;
+        synchronized (queue) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= capacity) {
+                dispatcher.recordOverflow(overflowPolicy);
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    overflowDisconnect = true;
+                } else if (overflowPolicy == OverflowPolicy.COALESCE_BY_TYPE) {
+                    if (!removeQueuedOfType(frame.type())) {
+                        queue.pollFirst();
+                    }
+                } else {
+                    queue.pollFirst();
+                }
+            }
+            if (!overflowDisconnect) {
+                queue.addLast(frame);
+            }
+            schedule = !overflowDisconnect && !scheduled;
+            if (schedule) {
+                scheduled = true;
+            }
+        }
+        if (overflowDisconnect) {
+            disconnect(null);
+            return false;
+        }
+        if (schedule) {
+            dispatcher.execute(this::drain);
+        }
+        return true;
+    }
+
+    /// Puts replayed frames in front of the queue, skipping the ones already queued live since the subscription
+    /// started. Used once right after a reconnect, before the client has read anything.
+    public void prepend(List<SseFrame> frames) {
+        if (frames.isEmpty()) {
+            return;
+        }
+        boolean schedule;
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            Set<Long> queuedIds = new HashSet<>();
+            queue.forEach(frame -> queuedIds.add(frame.id()));
+            for (int i = frames.size() - 1; i >= 0; i--) {
+                SseFrame frame = frames.get(i);
+                if (!queuedIds.contains(frame.id())) {
+                    queue.addFirst(frame);
+                }
+            }
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    /// Writes a heartbeat comment if nothing else is being written to the connection. A connection that is
+    /// busy draining its queue is proven alive (or dead) by the drain itself, so it is skipped. Returns false
+    /// only when the write failed.
+    public boolean ping() {
+        if (closed) {
+            return false;
+        }
+        if (!writeLock.tryLock()) {
+            return true;
+        }
+        try {
+            synchronized (queue) {
+                if (scheduled) {
+                    return true;
+                }
+            }
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            markClosed(e);
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /// Marks the connection closed without calling onDisconnect, used when the caller removes it from the
+    /// registry itself.
+    public void markClosed(Throwable error) {
+        synchronized (queue) {
+            closed = true;
+            queue.clear();
+        }
+        if (error != null) {
+            emitter.completeWithError(error);
+        } else {
+            emitter.complete();
+        }
+    }
+
+    private void drain() {
+        writeLock.lock();
+        try {
+            for (int i = 0; i < MAX_FRAMES_PER_DRAIN; i++) {
+                SseFrame frame;
+                synchronized (queue) {
+                    frame = queue.pollFirst();
+                    if (frame == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(frame.data());
+                } catch (IOException | IllegalStateException e) {
+                    disconnect(e);
+                    return;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        dispatcher.execute(this::drain); // More frames are waiting, let other subscribers use the thread first
+    }
+
+    private void disconnect(Throwable error) {
+        markClosed(error);
+        onDisconnect.accept(this);
+    }
+
+    private boolean removeQueuedOfType(String type) {
+        Iterator<SseFrame> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().type().equals(type)) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/// Keeps every open SSE connection grouped by the user's email.
+/// A user can have many connections at once (one per tab / device), so each email maps to a small array of
+/// subscribers. The map is split into lock-striped shards: a subscribe or disconnect only locks the shard the
+/// email hashes to, so thousands of concurrent subscribers do not fight over a single lock.
+@Component
+public class SseSubscriberRegistry {
+
+    private static final SseSubscriber[] NO_SUBSCRIBERS = new SseSubscriber[0];
+
+    @Value("${notification.sse.shards:64}")
+    private int shardCount;
+
+    private Shard[] shards;
+    private int shardMask;
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1; // Rounds up to a power of two so
+                                                                              // the shard index is a cheap mask
+        shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        shardMask = size - 1;
+    }
+
+    public void register(SseSubscriber subscriber) {
+        String email = subscriber.getEmail();
+        Shard shard = shardFor(email);
+        synchronized (shard) {
+            SseSubscriber[] current = shard.subscribers.getOrDefault(email, NO_SUBSCRIBERS);
+            SseSubscriber[] updated = new SseSubscriber[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = subscriber;
+            shard.subscribers.put(email, updated);
+            shard.size++;
+        }
+    }
+
+    /// Removes one connection of the user. Safe to call more than once for the same connection, which happens
+    /// when completion, timeout and error callbacks all fire for one connection.
+    public boolean unregister(SseSubscriber subscriber) {
+        String email = subscriber.getEmail();
+        Shard shard = shardFor(email);
+        synchronized (shard) {
+            SseSubscriber[] current = shard.subscribers.get(email);
+            if (current == null) {
+                return false;
+            }
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == subscriber) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            if (current.length == 1) {
+                shard.subscribers.remove(email);
+            } else {
+                SseSubscriber[] updated = new SseSubscriber[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                shard.subscribers.put(email, updated);
+            }
+            shard.size--;
+            return true;
+        }
+    }
+
+    /// Returns the connections of the user. The array is never modified after it is published, so callers can
+    /// iterate it outside of the shard lock while other threads subscribe or disconnect.
+    public SseSubscriber[] subscribersFor(String email) {
+        Shard shard = shardFor(email);
+        synchronized (shard) {
+            return shard.subscribers.getOrDefault(email, NO_SUBSCRIBERS);
+        }
+    }
+
+    public boolean isConnected(String email) {
+        return subscribersFor(email).length > 0;
+    }
+
+    public int subscriberCount() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.size;
+            }
+        }
+        return total;
+    }
+
+    public List<String> connectedUsers() {
+        List<String> users = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                users.addAll(shard.subscribers.keySet());
+            }
+        }
+        return users;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /// Copies every connection of one shard, so a sweep can walk the registry shard by shard without
+    /// holding any lock while it writes to the sockets.
+    public List<SseSubscriber> snapshotShard(int index) {
+        Shard shard = shards[index];
+        synchronized (shard) {
+            List<SseSubscriber> snapshot = new ArrayList<>(shard.size);
+            for (SseSubscriber[] subscribers : shard.subscribers.values()) {
+                for (SseSubscriber subscriber : subscribers) {
+                    snapshot.add(subscriber);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /// Removes many connections at once and returns how many were still registered.
+    public int unregisterAll(Collection<SseSubscriber> subscribers) {
+        int removed = 0;
+        for (SseSubscriber subscriber : subscribers) {
+            if (unregister(subscriber)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Shard shardFor(String email) {
+        int h = email.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
+    private static final class Shard {
+        private final Map<String, SseSubscriber[]> subscribers = new HashMap<>();
+        private int size;
+    }
+}
@@ -0,0 +1,149 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/// WebSocket (STOMP) channel. One connection carries the user's own queue (/user/queue/notifications) and any
+/// number of topic subscriptions (/topic/{topic name}, see NotificationTopics), so a client with many tabs or
+/// topics needs a single socket instead of one SSE stream each.
+///
+/// A user counts as connected on this channel while at least one of their sessions is subscribed to their own
+/// queue, a session that is open but not subscribed would not receive anything. Sessions are tracked by id, so
+/// a disconnect event that Spring publishes twice for the same session is harmless.
+@Component
+public class StompNotificationChannel implements NotificationChannel {
+
+    public static final String USER_DESTINATION = "/queue/notifications";
+    public static final String TOPIC_PREFIX = "/topic/";
+    private static final String USER_SUBSCRIPTION = "/user" + USER_DESTINATION; // What clients subscribe to
+
+    private static final Map<String, Object> JSON_HEADERS = Map.of(MessageHeaders.CONTENT_TYPE,
+            MimeTypeUtils.APPLICATION_JSON); // byte[] payloads are sent as is, the header tells the client it is JSON
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Ids of the sessions of each user that are subscribed to the user's queue
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    // Ids of the subscriptions to the user's queue of each session, an UNSUBSCRIBE frame only names its id
+    private final Map<String, Set<String>> queueSubscriptionsBySession = new ConcurrentHashMap<>();
+
+    @Override
+    public int publishToTopic(String topic, long id, String message, long timestamp) {
+        // The simple broker fans the frame out to the sessions subscribed to the destination
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + topic, new NotificationFrame(id, topic, message, timestamp));
+        return 0; // The broker does not report how many sessions received it
+    }
+
+    /// Serializes the frame once and sends the same bytes to every connected recipient.
+    @Override
+    public int broadcast(Collection<String> emails, long id, String type, String message, long timestamp) {
+        byte[] payload = null;
+        int delivered = 0;
+        for (String email : emails) {
+            Set<String> sessions = sessionsByUser.get(email);
+            if (sessions == null) {
+                continue;
+            }
+            if (payload == null) {
+                payload = render(new NotificationFrame(id, type, message, timestamp));
+            }
+            messagingTemplate.convertAndSendToUser(email, USER_DESTINATION, payload, JSON_HEADERS);
+            delivered += sessions.size();
+        }
+        return delivered;
+    }
+
+    @Override
+    public boolean isConnected(String email) {
+        return sessionsByUser.containsKey(email);
+    }
+
+    @Override
+    public Collection<String> connectedUsers() {
+        return List.copyOf(sessionsByUser.keySet());
+    }
+
+    private byte[] render(NotificationFrame frame) {
+        try {
+            return objectMapper.writeValueAsBytes(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not render the notification", e);
+        }
+    }
+
+    @EventListener
+    public void onSubscribed(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Principal user = event.getUser();
+        String sessionId = headers.getSessionId();
+        if (user == null || sessionId == null || headers.getSubscriptionId() == null
+                || !USER_SUBSCRIPTION.equals(headers.getDestination())) {
+            return;
+        }
+        queueSubscriptionsBySession.compute(sessionId, (id, subscriptions) -> add(subscriptions,
+                headers.getSubscriptionId()));
+        sessionsByUser.compute(user.getName(), (email, sessions) -> add(sessions, sessionId));
+    }
+
+    @EventListener
+    public void onUnsubscribed(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        Set<String> left = queueSubscriptionsBySession.computeIfPresent(sessionId, (id, subscriptions) -> {
+            subscriptions.remove(headers.getSubscriptionId());
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+        if (left == null) {
+            removeSession(event.getUser(), sessionId);
+        }
+    }
+
+    // Can be published more than once for the same session
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        queueSubscriptionsBySession.remove(event.getSessionId());
+        removeSession(event.getUser(), event.getSessionId());
+    }
+
+    // Inside compute(), so a concurrent removal of the last element cannot drop the set we add to
+    private static Set<String> add(Set<String> ids, String id) {
+        Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+        result.add(id);
+        return result;
+    }
+
+    private void removeSession(Principal user, String sessionId) {
+        if (user == null) {
+            return;
+        }
+        sessionsByUser.computeIfPresent(user.getName(), (email, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
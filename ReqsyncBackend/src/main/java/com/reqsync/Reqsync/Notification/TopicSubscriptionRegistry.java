@@ -0,0 +1,65 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.stereotype.Component;
+
+/// Keeps which connected users listen to which topic, so a publish only touches the users of that topic
+/// instead of every volunteer.
+@Component
+public class TopicSubscriptionRegistry {
+
+    private static final Set<String> NO_MEMBERS = Set.of();
+
+    private final Map<String, Set<String>> membersByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Collection<String>> topicsByUser = new ConcurrentHashMap<>();
+
+    public void join(String email, Collection<String> topics) {
+        topicsByUser.compute(email, (key, current) -> { // compute() serializes join and leave for one user
+            if (current != null) {
+                current.forEach(topic -> removeMember(topic, email));
+            }
+            topics.forEach(topic -> addMember(topic, email));
+            return topics;
+        });
+    }
+
+    /// Leaves all topics of the user, unless stillConnected says a new connection of the same user arrived
+    /// in the meantime.
+    public void leaveAll(String email, BooleanSupplier stillConnected) {
+        topicsByUser.computeIfPresent(email, (key, current) -> {
+            if (stillConnected.getAsBoolean()) {
+                return current;
+            }
+            current.forEach(topic -> removeMember(topic, email));
+            return null;
+        });
+    }
+
+    public Set<String> members(String topic) {
+        return membersByTopic.getOrDefault(topic, NO_MEMBERS);
+    }
+
+    public Collection<String> topicsOf(String email) {
+        return topicsByUser.getOrDefault(email, NO_MEMBERS);
+    }
+
+    private void addMember(String topic, String email) {
+        membersByTopic.compute(topic, (t, members) -> {
+            Set<String> updated = members != null ? members : ConcurrentHashMap.newKeySet();
+            updated.add(email);
+            return updated;
+        });
+    }
+
+    private void removeMember(String topic, String email) {
+        membersByTopic.computeIfPresent(topic, (t, members) -> {
+            members.remove(email);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.reqsync.Reqsync.Notification;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
+import com.reqsync.Reqsync.Repository.VolunteerRepository;
+
+/// The topics a user may listen to, see NotificationTopics. Used to join the topics of an SSE connection and to
+/// check the topics a STOMP client subscribes to.
+@Component
+public class VolunteerTopics {
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    public List<String> topicsFor(String email) {
+        Optional<String> area = volunteerRepository.findAreaByEmail(email);
+        if (area.isEmpty()) {
+            return List.of(); // Not a volunteer, only direct notifications reach this user
+        }
+        List<VolunterrTypes> types = volunteerRepository.findTypesByEmail(email);
+        return NotificationTopics.forVolunteer(types, area.get());
+    }
+}
@@ -0,0 +1,110 @@
+package com.reqsync.Reqsync.RateLimit;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.reqsync.Reqsync.CustomException.TooManyRequests;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/// Limits /api/auth/login and /api/auth/signup per client address and per email with a TokenBucket each, so
+/// one client cannot keep the password hashing pool busy and nobody can guess the password of one account
+/// from many addresses. Refused attempts throw TooManyRequests (429) and count as auth.rate-limit.rejected.
+///
+/// The address is the one of ServletRequest.getRemoteAddr(). Behind a reverse proxy or load balancer that is
+/// the proxy for every client, unless the deployment sets server.forward-headers-strategy=native: Tomcat then
+/// takes the client address from X-Forwarded-For, and only when the request comes from a trusted proxy
+/// (server.tomcat.remoteip.internal-proxies), so clients cannot pick their own address. Without it every
+/// client shares the limit of the proxy.
+///
+/// A bucket idle long enough to be full again is the same as a new one, those are dropped every minute. At
+/// most auth.rate-limit.max-keys buckets are kept per kind, the oldest go first.
+@Component
+public class LoginRateLimiter {
+
+    private static final class Limit {
+        private final TokenBucket bucket;
+        private volatile long lastUsed;
+
+        private Limit(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final Map<String, Limit> byAddress = new ConcurrentHashMap<>();
+    private final Map<String, Limit> byEmail = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private double addressCapacity;
+
+    @Value("${auth.rate-limit.ip.per-second:1}")
+    private double addressPerSecond;
+
+    @Value("${auth.rate-limit.email.capacity:5}")
+    private double emailCapacity;
+
+    @Value("${auth.rate-limit.email.per-second:0.1}")
+    private double emailPerSecond;
+
+    @Value("${auth.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    /// Takes a token for the address and one for the email, throws TooManyRequests when either is used up.
+    public void check(String address, String email) {
+        if (address != null && !take(byAddress, address, addressCapacity, addressPerSecond)) {
+            meterRegistry.counter("auth.rate-limit.rejected", "key", "ip").increment();
+            throw new TooManyRequests("Too many attempts from this address, please wait a moment and try again");
+        }
+        if (email != null && !take(byEmail, email.trim().toLowerCase(Locale.ROOT), emailCapacity, emailPerSecond)) {
+            meterRegistry.counter("auth.rate-limit.rejected", "key", "email").increment();
+            throw new TooManyRequests("Too many attempts for this account, please wait a moment and try again");
+        }
+    }
+
+    private boolean take(Map<String, Limit> limits, String key, double capacity, double perSecond) {
+        Limit limit = limits.get(key);
+        if (limit == null) {
+            if (limits.size() >= maxKeys) {
+                evictOldest(limits);
+            }
+            limit = limits.computeIfAbsent(key, k -> new Limit(new TokenBucket(capacity, perSecond)));
+        }
+        limit.lastUsed = System.currentTimeMillis();
+        return limit.bucket.tryAcquire();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictRefilled() {
+        long now = System.currentTimeMillis();
+        evictIdle(byAddress, now - (long) Math.ceil(addressCapacity / addressPerSecond * 1000));
+        evictIdle(byEmail, now - (long) Math.ceil(emailCapacity / emailPerSecond * 1000));
+    }
+
+    private static void evictIdle(Map<String, Limit> limits, long cutoff) {
+        limits.values().removeIf(limit -> limit.lastUsed < cutoff);
+    }
+
+    private void evictOldest(Map<String, Limit> limits) {
+        long oldest = Long.MAX_VALUE;
+        for (Limit limit : limits.values()) {
+            oldest = Math.min(oldest, limit.lastUsed);
+        }
+        long cutoff = oldest;
+        Iterator<Limit> it = limits.values().iterator();
+        while (limits.size() >= maxKeys && it.hasNext()) {
+            if (it.next().lastUsed <= cutoff) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.reqsync.Reqsync.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.reqsync.Reqsync.Entity.InboxNotification;
+
+@Repository
+public interface NotificationInboxRepository extends JpaRepository<InboxNotification, Long> {
+
+    // Keyset page: the unread notifications older than the cursor, newest first
+    @Query("SELECT n FROM InboxNotification n WHERE n.recipientEmail = :email AND n.read = false AND n.id < :beforeId ORDER BY n.id DESC")
+    List<InboxNotification> findUnreadBefore(@Param("email") String email, @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE InboxNotification n SET n.read = true WHERE n.recipientEmail = :email AND n.id IN :ids")
+    int markRead(@Param("email") String email, @Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE InboxNotification n SET n.read = true WHERE n.recipientEmail = :email AND n.read = false AND n.id <= :upToId")
+    int markReadUpTo(@Param("email") String email, @Param("upToId") Long upToId);
+}
@@ -1,8 +1,11 @@
 package com.reqsync.Reqsync.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.reqsync.Reqsync.Entity.User;
@@ -14,4 +17,10 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     boolean existsByEmail(String userEmail);
 
+    // One row per role as (password, role name, token version), role name is null for a user without roles. Only
+    // what authentication needs, without the profile picture or the EAGER associations of User and Roles. The
+    // version comes from the same statement as the roles, so a token never pairs old roles with a newer version.
+    @Query("SELECT u.password, r.role, u.tokenVersion FROM User u LEFT JOIN u.roles r WHERE u.email = :email")
+    List<Object[]> findCredentialsByEmail(@Param("email") String email);
+
 }
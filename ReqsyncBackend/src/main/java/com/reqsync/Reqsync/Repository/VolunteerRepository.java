@@ -1,13 +1,17 @@
 package com.reqsync.Reqsync.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
 import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.Entity.Volunteer;
 
@@ -23,4 +27,23 @@ public interface VolunteerRepository extends JpaRepository<Volunteer, Long> {
     @Modifying
     @Query("DELETE FROM Volunteer v WHERE v.user = :user")
     void deleteByUser(@Param("user") User user);
+
+    @Query("SELECT v.area FROM Volunteer v WHERE v.user.email = :email")
+    Optional<String> findAreaByEmail(@Param("email") String email);
+
+    @Query("SELECT t FROM Volunteer v JOIN v.volunteeringTypes t WHERE v.user.email = :email")
+    List<VolunterrTypes> findTypesByEmail(@Param("email") String email);
+
+    // Scalar columns of the volunteers after the given id, one row per volunteer, used to build the
+    // VolunteerMatchIndex page by page. The collections are loaded for a page at a time by the queries below
+    @Query("SELECT v.id, v.user.email, v.name, v.area, v.digestMode FROM Volunteer v WHERE v.id > :afterId ORDER BY v.id")
+    List<Object[]> findIndexRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // (id, skills) with skills a list, or one row per skill with a single name, depending on how the mapping of
+    // skills stores them. Volunteers without skills may be missing
+    @Query("SELECT v.id, v.skills FROM Volunteer v WHERE v.id IN :ids")
+    List<Object[]> findSkillsByVolunteerIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT v.id, t FROM Volunteer v JOIN v.volunteeringTypes t WHERE v.id IN :ids")
+    List<Object[]> findTypesByVolunteerIds(@Param("ids") Collection<Long> ids);
 }
@@ -2,179 +2,201 @@ package com.reqsync.Reqsync.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.reqsync.Reqsync.CustomException.MessageNotSended;
 import com.reqsync.Reqsync.Entity.HelpRequest;
 import com.reqsync.Reqsync.Entity.RequestHelperIssue;
+import com.reqsync.Reqsync.Mail.EmailOutbox;
+import com.reqsync.Reqsync.Mail.EmailTemplate;
+import com.reqsync.Reqsync.Mail.OutgoingEmail;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
+/// Builds the emails of the application. Nothing is sent from here, each email is queued in the email outbox and
+/// sent in the background by EmailOutboxWorker, so callers never wait on the mail server.
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutbox emailOutbox;
+
+    @Value("${email.broadcast.max-recipients:50}")
+    private int broadcastMaxRecipients;
+
+    @Value("${email.broadcast.to:${spring.mail.username:noreply@reqsync.local}}")
+    private String broadcastTo; // The visible To of broadcasts, the volunteers are all in BCC
+
+    // The templates are compiled once, {{name}} slots are filled with HTML escaped values, see EmailTemplate
+
+    private static final EmailTemplate WELCOME = EmailTemplate.compile(
+            "<div style='font-family: Arial, sans-serif; padding: 10px;'>" +
+                    "<h2>Hello {{volunteerName}},</h2>" +
+                    "<p>Thank you for joining our volunteer program! We are thrilled to have you on board.</p>"
+                    +
+                    "<p>At ReqSync, you can not only contribute to meaningful projects but also <strong>chat and collaborate</strong> with other volunteers.</p>"
+                    +
+                    "<p>To get started, log in to your account and connect with the team:</p>" +
+                    "<br><br>" +
+                    "<p>Looking forward to seeing you in action!</p>" +
+                    "<br><p>Best Regards,</p>" +
+                    "<p><strong>ReqSync Team</strong></p>" +
+                    "</div>",
+            "volunteerName");
+
+    private static final EmailTemplate HELP_REQUEST = EmailTemplate.compile(
+            "<p>Dear {{volunteerName}},</p>"
+                    + "<p>You have received a new help request from someone in need. Below are the details:</p>"
+                    + "<h2 style='color: #ff5733;'>Help Type: {{helpType}}</h2>"
+                    + "<p><strong>Requester's Name:</strong> {{requesterName}}<br>"
+                    + "<strong>Email:</strong> {{requesterEmail}}<br>"
+                    + "<strong>Phone Number:</strong> {{phone}}<br>"
+                    + "<strong>Location:</strong> {{area}}</p>"
+                    + "<h3>Message:</h3>"
+                    + "<p>{{message}}</p>"
+                    + "<p>Please reach out to them as soon as possible to provide the necessary assistance. Your support can make a real difference.</p>"
+                    + "<p>Thank you for your kindness and dedication.</p>"
+                    + "<p>Best regards,<br><strong>Reqsync Team</strong></p>",
+            "volunteerName", "helpType", "requesterName", "requesterEmail", "phone", "area", "message");
+
+    private static final EmailTemplate REQUEST_FULFILLED = EmailTemplate.compile("""
+            <html>
+            <body>
+                <p>Dear {{requestorName}},</p>
+                <p>We are happy to inform you that your help request for <strong>{{helpType}}</strong> has been fulfilled by <strong>{{volunteerName}}</strong>.</p>
+
+                <h4>Request Details:</h4>
+                <ul>
+                    <li><b>Help Type:</b> {{helpType}}</li>
+                    <li><b>Fulfilled On:</b> {{fulfilledTime}}</li>
+                </ul>
+
+                <p>We hope your issue has been resolved to your satisfaction. If there is anything else you need assistance with, feel free to reach out.</p>
+
+                <p><a href="https://yourwebsite.com/confirm-request"
+                      style="padding: 10px 20px; background-color: #28a745; color: #fff; text-decoration: none; border-radius: 5px;">
+                      Confirm Request Completion
+                   </a></p>
+
+                <p>Thank you for using our platform to connect with volunteers. We appreciate your trust!</p>
+
+                <p>Best regards,</p>
+                <p><strong>The ReqSync Team</strong></p>
+            </body>
+            </html>
+            """, "requestorName", "helpType", "volunteerName", "fulfilledTime");
+
+    private static final EmailTemplate ISSUE_REPORTED = EmailTemplate.compile("""
+            <html>
+            <body>
+                <p>Dear Volunteers,</p>
+                <p>The requestor, <strong>{{requestorName}}</strong>, has reported an issue regarding their help request for <strong>{{helpType}}</strong>.
+                They have indicated that the problem has not been fully resolved.</p>
+
+                <h4>Issue Details:</h4>
+                <ul>
+                    <li><b>Help Type:</b> {{helpType}}</li>
+                    <li><b>Reported On:</b> {{reportedTime}}</li>
+                    <li><b>Requestor's Concern:</b> {{issueDetails}}</li>
+                </ul>
+
+                <h4>Resolution Attempt:</h4>
+                <ul>
+                    <li><b>Resolved By:</b> {{resolvedBy}}</li>
+                </ul>
+
+                <p>We kindly ask you to revisit this request and assist further if possible.</p>
+
+                <p>Thank you for your continued support in helping those in need.</p>
+
+                <p>Best regards,</p>
+                <p><strong>The ReqSync Team</strong></p>
+            </body>
+            </html>
+            """, "requestorName", "helpType", "reportedTime", "issueDetails", "resolvedBy");
+
+    private static final EmailTemplate DIGEST = EmailTemplate.compile(
+            "<p>Dear {{volunteerName}},</p>"
+                    + "<p>{{count}} new help requests matching your volunteering types and area were posted. Below are the details:</p>"
+                    + "{{{items}}}"
+                    + "{{{more}}}"
+                    + "<p>Please reach out to them as soon as possible to provide the necessary assistance. Your support can make a real difference.</p>"
+                    + "<p>Thank you for your kindness and dedication.</p>"
+                    + "<p>Best regards,<br><strong>Reqsync Team</strong></p>",
+            "volunteerName", "count", "items", "more");
 
-    public void sendVolunteerWelcomeEmail(String toEmail, String volunteerName) {
+    private static final EmailTemplate DIGEST_ITEM = EmailTemplate.compile(
+            "<h3 style='color: #ff5733;'>Help Type: {{helpType}}</h3>"
+                    + "<p><strong>Requester's Name:</strong> {{requesterName}}<br>"
+                    + "<strong>Email:</strong> {{requesterEmail}}<br>"
+                    + "<strong>Phone Number:</strong> {{phone}}<br>"
+                    + "<strong>Location:</strong> {{area}}</p>"
+                    + "<p>{{message}}</p>",
+            "helpType", "requesterName", "requesterEmail", "phone", "area", "message");
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(toEmail);
-            helper.setSubject("Welcome to ReqSync Volunteer Team!");
-            helper.setText(
-                    "<div style='font-family: Arial, sans-serif; padding: 10px;'>" +
-                            "<h2>Hello " + volunteerName + ",</h2>" +
-                            "<p>Thank you for joining our volunteer program! We are thrilled to have you on board.</p>"
-                            +
-                            "<p>At ReqSync, you can not only contribute to meaningful projects but also <strong>chat and collaborate</strong> with other volunteers.</p>"
-                            +
-                            "<p>To get started, log in to your account and connect with the team:</p>" +
-                            "<br><br>" +
-                            "<p>Looking forward to seeing you in action!</p>" +
-                            "<br><p>Best Regards,</p>" +
-                            "<p><strong>ReqSync Team</strong></p>" +
-                            "</div>",
-                    true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new MessageNotSended("Failed to send email.");
-        }
+    private static final EmailTemplate DIGEST_MORE = EmailTemplate.compile(
+            "<p>{{count}} more requests are waiting on the website.</p>", "count");
 
+    private static final DateTimeFormatter REPORTED_TIME_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a");
+
+    public void sendVolunteerWelcomeEmail(String toEmail, String volunteerName) {
+        emailOutbox.enqueue(new OutgoingEmail(toEmail, null, "Welcome to ReqSync Volunteer Team!",
+                WELCOME.render(volunteerName)));
     }
 
     public void sendHelpRequestEmail(HelpRequest helpRequest, String volunteerEmail, String volunteerName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(volunteerEmail);
-            helper.setSubject("Urgent Help Request - " + helpRequest.getHelpType());
-            helper.setText("<p>Dear " + volunteerName + ",</p>"
-                    + "<p>You have received a new help request from someone in need. Below are the details:</p>"
-                    + "<h2 style='color: #ff5733;'>Help Type: " + helpRequest.getHelpType() + "</h2>"
-                    + "<p><strong>Requester's Name:</strong> " + helpRequest.getName() + "<br>"
-                    + "<strong>Email:</strong> " + helpRequest.getUser().getEmail() + "<br>"
-                    + "<strong>Phone Number:</strong> " + helpRequest.getPhone() + "<br>"
-                    + "<strong>Location:</strong> " + helpRequest.getArea() + "</p>"
-                    + "<h3>Message:</h3>"
-                    + "<p>" + helpRequest.getMessage() + "</p>"
-                    + "<p>Please reach out to them as soon as possible to provide the necessary assistance. Your support can make a real difference.</p>"
-                    + "<p>Thank you for your kindness and dedication.</p>"
-                    + "<p>Best regards,<br><strong>Reqsync Team</strong></p>", true);
+        emailOutbox.enqueue(new OutgoingEmail(volunteerEmail, null, "Urgent Help Request - " + helpRequest.getHelpType(),
+                HELP_REQUEST.render(volunteerName, helpRequest.getHelpType(), helpRequest.getName(),
+                        helpRequest.getUser().getEmail(), helpRequest.getPhone(), helpRequest.getArea(),
+                        helpRequest.getMessage())));
+    }
 
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new MessageNotSended("Failed to send email.");
+    /// One summary email for a volunteer in digest mode. total counts every new request, items holds the ones
+    /// shown in the email.
+    public void sendHelpRequestDigestEmail(String volunteerEmail, String volunteerName, List<HelpRequest> items,
+            int total) {
+        StringBuilder rendered = new StringBuilder();
+        for (HelpRequest helpRequest : items) {
+            rendered.append(DIGEST_ITEM.render(helpRequest.getHelpType(), helpRequest.getName(),
+                    helpRequest.getUser().getEmail(), helpRequest.getPhone(), helpRequest.getArea(),
+                    helpRequest.getMessage()));
         }
+        String more = total > items.size() ? DIGEST_MORE.render(total - items.size()) : null;
+        emailOutbox.enqueue(new OutgoingEmail(volunteerEmail, null, "New Help Requests - " + total + " waiting",
+                DIGEST.render(volunteerName, total, rendered, more)));
     }
 
     public void sendRequestFulfilledEmail(String requestorEmail, String requestorName,
             String volunteerName, String helpType,
             LocalDateTime fulfilledTime) {
         String subject = "Your Help Request Has Been Fulfilled! 🎉";
+        String message = REQUEST_FULFILLED.render(requestorName, helpType, volunteerName, fulfilledTime);
 
-        String message = """
-                <html>
-                <body>
-                    <p>Dear %s,</p>
-                    <p>We are happy to inform you that your help request for <strong>%s</strong> has been fulfilled by <strong>%s</strong>.</p>
-
-                    <h4>Request Details:</h4>
-                    <ul>
-                        <li><b>Help Type:</b> %s</li>
-                        <li><b>Fulfilled On:</b> %s</li>
-                    </ul>
-
-                    <p>We hope your issue has been resolved to your satisfaction. If there is anything else you need assistance with, feel free to reach out.</p>
-
-                    <p><a href="https://yourwebsite.com/confirm-request"
-                          style="padding: 10px 20px; background-color: #28a745; color: #fff; text-decoration: none; border-radius: 5px;">
-                          Confirm Request Completion
-                       </a></p>
-
-                    <p>Thank you for using our platform to connect with volunteers. We appreciate your trust!</p>
-
-                    <p>Best regards,</p>
-                    <p><strong>The ReqSync Team</strong></p>
-                </body>
-                </html>
-                """
-                .formatted(requestorName, helpType, volunteerName, helpType, fulfilledTime);
-
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            helper.setTo(requestorEmail);
-            helper.setSubject(subject);
-            helper.setText(message, true); // true for HTML content
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutbox.enqueue(new OutgoingEmail(requestorEmail, null, subject, message));
     }
 
-    public void sendRequestIssueReportedEmail(RequestHelperIssue hRequestHelperIssue, String emailTo,
-            String requestorName, String helpType,
-            LocalDateTime reportedTime, String issueDetails,
-            String resolvedBy) {
-
+    /// The issue reported email, rendered once for every volunteer and sent as BCC chunks of at most
+    /// email.broadcast.max-recipients addresses, see sendBroadcast().
+    public OutgoingEmail requestIssueReportedBroadcast(RequestHelperIssue hRequestHelperIssue, String requestorName,
+            String helpType, LocalDateTime reportedTime, String issueDetails, String resolvedBy) {
         String subject = "Help Request Issue Reported - Action Needed ❗";
+        String message = ISSUE_REPORTED.render(requestorName, helpType, reportedTime.format(REPORTED_TIME_FORMAT),
+                issueDetails, resolvedBy);
+        return new OutgoingEmail(broadcastTo, hRequestHelperIssue.getHelpIssuerEmail(), subject, message);
+    }
 
-        String formattedTime = reportedTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a"));
-        String message = String.format(
-                """
-                        <html>
-                        <body>
-                            <p>Dear Volunteers,</p>
-                            <p>The requestor, <strong>%s</strong>, has reported an issue regarding their help request for <strong>%s</strong>.
-                            They have indicated that the problem has not been fully resolved.</p>
-
-                            <h4>Issue Details:</h4>
-                            <ul>
-                                <li><b>Help Type:</b> %s</li>
-                                <li><b>Reported On:</b> %s</li>
-                                <li><b>Requestor's Concern:</b> %s</li>
-                            </ul>
-
-                            <h4>Resolution Attempt:</h4>
-                            <ul>
-                                <li><b>Resolved By:</b> %s</li>
-                            </ul>
-
-                            <p>We kindly ask you to revisit this request and assist further if possible.</p>
-
-                            <p>Thank you for your continued support in helping those in need.</p>
-
-                            <p>Best regards,</p>
-                            <p><strong>The ReqSync Team</strong></p>
-                        </body>
-                        </html>
-                        """,
-                requestorName, helpType, helpType, formattedTime, issueDetails, resolvedBy);
-
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            helper.setTo(emailTo);
-            helper.setFrom(hRequestHelperIssue.getHelpIssuerEmail());
-            helper.setSubject(subject);
-            helper.setText(message, true); // true for HTML content
-
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
+    /// Queues the same email for all the recipients, one outbox row per chunk of BCC recipients. Each chunk is sent,
+    /// retried or dead lettered on its own.
+    public void sendBroadcast(OutgoingEmail email, List<String> recipients) {
+        List<OutgoingEmail> chunks = new ArrayList<>();
+        for (int from = 0; from < recipients.size(); from += broadcastMaxRecipients) {
+            chunks.add(email.withBcc(
+                    List.copyOf(recipients.subList(from, Math.min(recipients.size(), from + broadcastMaxRecipients)))));
+        }
+        if (!chunks.isEmpty()) {
+            emailOutbox.enqueueAll(chunks);
         }
     }
 
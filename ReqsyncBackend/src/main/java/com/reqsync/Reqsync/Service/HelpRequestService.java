@@ -13,7 +13,9 @@ import com.reqsync.Reqsync.Entity.RequestStatus;
 import com.reqsync.Reqsync.Entity.Roles;
 import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.Entity.Volunteer;
-import com.reqsync.Reqsync.Events.HelpRequestCreatedEvent;
+import com.reqsync.Reqsync.JwtConfig.TokenVersionService;
+import com.reqsync.Reqsync.Events.EventOutbox;
+import com.reqsync.Reqsync.Events.EventOutboxType;
 import com.reqsync.Reqsync.Repository.HelpRequestRepository;
 import com.reqsync.Reqsync.Repository.HelpRequestorIssueRepository;
 import com.reqsync.Reqsync.Repository.RoleRepository;
@@ -23,7 +25,6 @@ import com.reqsync.Reqsync.Repository.VolunteerResolutionRepository;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -53,11 +54,14 @@ public class HelpRequestService {
     private HelpRequestorIssueRepository helpRequestorIssueRepository;
 
     @Autowired
-    private ApplicationEventPublisher eventPublisher;
+    private EventOutbox eventOutbox; /// Events are written with the change and relayed after the commit.
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
     @Transactional
     public void addHelpRequest(HelpRequestFormDto helpRequestFormDto) {
         // Check if the current user is authenticated
@@ -88,6 +92,7 @@ public class HelpRequestService {
             // Add the "HELP_REQUESTER" role to the user
             user.getRoles().add(helpRequesterRole);
             userRepository.save(user); // Save the updated user with the new role
+            tokenVersionService.rolesChanged(user.getEmail());
         }
 
         if (user.getName() == null || user.getPhone() == null || user.getArea() == null) {
@@ -107,7 +112,8 @@ public class HelpRequestService {
 
         // Save the help request to the database
         helpRequestRepository.save(helpRequest);
-        eventPublisher.publishEvent(new HelpRequestCreatedEvent(this, helpRequest)); // ✅ Triggering event
+        // ✅ Triggering event, it is delivered by EventOutboxRelay only once this transaction commits
+        eventOutbox.enqueue(EventOutboxType.HELP_REQUEST_CREATED, helpRequest.getId());
 
     }
 
@@ -128,6 +134,7 @@ public class HelpRequestService {
             user.getRoles().remove(helpRequestorRoles);
             helpRequestRepository.deleteByUser(user);
             userRepository.save(user);
+            tokenVersionService.rolesChanged(user.getEmail());
             return true;
         }
         return false;
@@ -161,7 +168,7 @@ public class HelpRequestService {
         requestHelperIssue.setDescription(hRequestHelperIssueDto.getDescription());
         requestHelperIssue.setVolunteerEmail(volunteer.getUser().getEmail());
         helpRequestorIssueRepository.save(requestHelperIssue);
-        eventPublisher.publishEvent(new HelpRequestCreatedEvent(this, helpRequest));
+        eventOutbox.enqueue(EventOutboxType.HELP_REQUEST_CREATED, helpRequest.getId());
         return true;
     }
 }
@@ -0,0 +1,103 @@
+package com.reqsync.Reqsync.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.reqsync.Reqsync.Dto.InboxNotificationDto;
+import com.reqsync.Reqsync.Dto.InboxPageDto;
+import com.reqsync.Reqsync.Dto.InboxReadDto;
+import com.reqsync.Reqsync.Entity.InboxNotification;
+import com.reqsync.Reqsync.Repository.NotificationInboxRepository;
+
+/// Stores notifications for users that are not connected and serves them back page by page.
+/// The rows of all recipients are written with JDBC batch inserts, so a broadcast to thousands of offline
+/// volunteers costs a few round trips instead of one insert per volunteer. The write happens before the caller
+/// returns and joins its transaction, a failure reaches the caller (for the fan-out, the event outbox retries it).
+@Service
+public class NotificationInboxService {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_inbox (recipient_email, message, created_at, is_read) VALUES (?, ?, ?, false)";
+    private static final int MESSAGE_LENGTH = 500; // Same as the message column
+
+    @Autowired
+    private NotificationInboxRepository inboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${notification.inbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.inbox.page-size-max:100}")
+    private int maxPageSize;
+
+    @Transactional
+    public void store(String email, String message, long timestamp) {
+        storeAll(List.of(email), message, timestamp);
+    }
+
+    /// Puts the same message in the inbox of every recipient.
+    @Transactional
+    public void storeAll(Collection<String> emails, String message, long timestamp) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        String stored = truncate(message);
+        jdbcTemplate.batchUpdate(INSERT_SQL, emails, batchSize, (ps, email) -> {
+            ps.setString(1, email);
+            ps.setString(2, stored);
+            ps.setLong(3, timestamp);
+        });
+    }
+
+    public InboxPageDto unread(Long before, int limit) {
+        String email = currentEmail();
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        List<InboxNotification> rows = inboxRepository.findUnreadBefore(email,
+                before != null ? before : Long.MAX_VALUE, PageRequest.ofSize(pageSize));
+
+        List<InboxNotificationDto> items = rows.stream()
+                .map(row -> InboxNotificationDto.builder()
+                        .id(row.getId())
+                        .message(row.getMessage())
+                        .timestamp(row.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return InboxPageDto.builder()
+                .items(items)
+                .nextBefore(rows.size() == pageSize ? rows.get(rows.size() - 1).getId() : null)
+                .build();
+    }
+
+    public int markRead(InboxReadDto readDto) {
+        String email = currentEmail();
+        if (readDto.getUpToId() != null) {
+            return inboxRepository.markReadUpTo(email, readDto.getUpToId());
+        }
+        if (readDto.getIds() == null || readDto.getIds().isEmpty()) {
+            throw new IllegalArgumentException("Either ids or upToId is required.");
+        }
+        return inboxRepository.markRead(email, readDto.getIds());
+    }
+
+    private String currentEmail() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return ((UserDetails) authentication.getPrincipal()).getUsername();
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MESSAGE_LENGTH ? message : message.substring(0, MESSAGE_LENGTH);
+    }
+}
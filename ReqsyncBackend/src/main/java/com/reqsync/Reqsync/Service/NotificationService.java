@@ -1,53 +1,88 @@
 package com.reqsync.Reqsync.Service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import org.yaml.snakeyaml.emitter.EmitterException;
 
-import com.reqsync.Reqsync.Dto.NotificationDto;
+import com.reqsync.Reqsync.Notification.LocalNotificationDelivery;
+import com.reqsync.Reqsync.Notification.NotificationBroker;
+import com.reqsync.Reqsync.Notification.ReplayBufferStore;
+import com.reqsync.Reqsync.Notification.SseNotificationChannel;
+import com.reqsync.Reqsync.Notification.VolunteerTopics;
 
-import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
+/// Entry point for pushing notifications. It hands out the event ids, delivers them to the clients connected
+/// to this node (SSE and WebSocket) and forwards them through the NotificationBroker to the other nodes. Users
+/// that are connected on no node get the notification in their inbox instead.
 @Service
 public class NotificationService {
 
-    /// An SseEmitter is a Spring Framework class designed for Server-Sent Events
-    /// (SSE). It acts as a bridge between your server and client by holding an HTTP
-    /// connection open so the server can push updates to the client in real time.
-
-    private final Map<String, SseEmitter> sseEmitters = new ConcurrentHashMap<>(); /// A thread-safe ConcurrentHashMap
-                                                                                   /// that stores active SSE
-                                                                                   /// connections.
-
-    public SseEmitter subscribe(String email) {
-        SseEmitter emitter = new SseEmitter(3600000L); // 1 hour timeout
-        sseEmitters.put(email, emitter);
-        System.out.println("The user : " + email + " has been subscribed");
-        emitter.onCompletion(() -> {
-            sseEmitters.remove(email); /// Removes the emitter from the map when the connection is closed.
-        });
-        emitter.onTimeout(() -> {
-            sseEmitters.remove(email); // Removes the emitter from the map when the connection times out.
-        });
-        return emitter;
+    @Autowired
+    private LocalNotificationDelivery localDelivery; /// Every channel of this node, with Last-Event-ID replay.
+
+    @Autowired
+    private NotificationBroker broker; /// Reaches the users connected to the other nodes.
+
+    @Autowired
+    private SseNotificationChannel sseChannel;
+
+    @Autowired
+    private ReplayBufferStore replayBuffers; /// Hands out the event ids.
+
+    @Autowired
+    private NotificationInboxService notificationInboxService; /// Keeps notifications of offline users.
+
+    @Autowired
+    private VolunteerTopics volunteerTopics;
+
+    /// Opens a new SSE connection for the user. When the client reconnects with the id of the last event it
+    /// received, the events it missed in the meantime are replayed first.
+    public SseEmitter subscribe(String email, Long lastEventId) {
+        return sseChannel.subscribe(email, volunteerTopics.topicsFor(email), lastEventId);
+    }
+
+    /// Sends the message only to the connections that joined the topic, on every node. See NotificationTopics
+    /// for how topics are named.
+    public int publish(String topic, String message, long timestamp) {
+        long id = replayBuffers.nextId(); // Every member gets the same event id for this message
+        int delivered = localDelivery.publishToTopic(topic, id, message, timestamp);
+        broker.forwardToTopic(topic, id, message, timestamp);
+        return delivered;
+    }
+
+    /// Sends the same message to many users at once, on this node and on the others. This never waits for a slow
+    /// client. The message is rendered a single time per channel and shared by every recipient, only the
+    /// recipient's email is encoded per user. Recipients that are connected on no node (most volunteers are
+    /// offline) get it in their inbox. Returns how many connections of this node accepted it.
+    public int broadcast(Collection<String> emails, String message, long timestamp) {
+        long id = replayBuffers.nextId(); // One event id for the whole broadcast
+        int delivered = localDelivery.broadcast(emails, id, "notification", message, timestamp);
+        Collection<String> nowhere = broker.forwardToUsers(emails, id, "notification", message, timestamp);
+        List<String> offline = new ArrayList<>();
+        for (String email : nowhere) {
+            if (!localDelivery.isConnected(email)) {
+                offline.add(email);
+            }
+        }
+        notificationInboxService.storeAll(offline, message, timestamp);
+        return delivered;
     }
 
-    public void sendNotification(String email, NotificationDto notification) {
-        SseEmitter emitter = sseEmitters.get(email); /// Retrieves the emitter for the given email from the map.
-        if (emitter != null) {
-            try {
-                // emitter.send(SseEmitter.event()
-                // .name("notification")
-                // .data(notification));
-                emitter.send(notification); /// Sends the notification to the client using the emitter.
-            } catch (IOException e) {
-                emitter.completeWithError(e);
-                sseEmitters.remove(email); /// Removes the emitter from the map if an error occurs.
+    /// Puts the message in the inbox of every recipient that has no open connection on any node, used together
+    /// with publish() which only reaches connected topic members.
+    public void storeForOffline(Collection<String> emails, String message, long timestamp) {
+        List<String> notLocal = new ArrayList<>();
+        for (String email : emails) {
+            if (!localDelivery.isConnected(email)) {
+                notLocal.add(email);
             }
-        } else {
-            throw new EmitterException("No emitter found for : " + email);
         }
+        Set<String> elsewhere = broker.connectedElsewhere(notLocal);
+        notLocal.removeAll(elsewhere);
+        notificationInboxService.storeAll(notLocal, message, timestamp);
     }
-}
\ No newline at end of file
+}
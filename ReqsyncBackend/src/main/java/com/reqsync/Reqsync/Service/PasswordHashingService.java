@@ -0,0 +1,32 @@
+package com.reqsync.Reqsync.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.reqsync.Reqsync.Config.AsyncConfig;
+import com.reqsync.Reqsync.CustomException.LoginOverloaded;
+
+/// Runs the work that hashes or verifies a password (signup, login) on the bounded password hashing pool, so
+/// BCrypt never holds a request thread and a login burst cannot starve the rest of the api. When the pool queue
+/// is full the work is refused right away with LoginOverloaded (503) instead of queueing behind the burst.
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    @Qualifier(AsyncConfig.PASSWORD_HASHING_EXECUTOR)
+    private ThreadPoolTaskExecutor executor;
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            throw new LoginOverloaded("The server is busy with other logins, please try again in a few seconds");
+        }
+    }
+}
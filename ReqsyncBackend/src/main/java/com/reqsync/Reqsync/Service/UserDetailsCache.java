@@ -0,0 +1,86 @@
+package com.reqsync.Reqsync.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.reqsync.Reqsync.Events.UserProfileUpdatedEvent;
+import com.reqsync.Reqsync.Events.UserRolesChangedEvent;
+import com.reqsync.Reqsync.Model.CustomUserDetails;
+
+/// The users loaded by UserDetailsServicImp, so an authenticated request does not read the user and its roles
+/// every time. Entries hold the email, the password hash and the role names only, never the User entity.
+///
+/// An entry is dropped when the roles or the profile of its user change (after the commit), after
+/// security.user-details-cache.ttl-ms, or to stay under security.user-details-cache.max-size. A max size of 0
+/// turns the cache off. Changes made on another instance are seen after the ttl.
+@Component
+public class UserDetailsCache {
+
+    private record Entry(CustomUserDetails userDetails, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation, a load that overlapped one is not cached since it may have read the old user
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Value("${security.user-details-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.user-details-cache.ttl-ms:60000}")
+    private long ttlMillis;
+
+    public CustomUserDetails get(String email, Supplier<CustomUserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.userDetails;
+        }
+        long invalidationsBefore = invalidations.get();
+        CustomUserDetails userDetails = loader.get();
+        if (maxSize > 0 && invalidations.get() == invalidationsBefore) {
+            if (entries.size() >= maxSize && !entries.containsKey(email)) {
+                evict(now);
+            }
+            entries.put(email, new Entry(userDetails, now + ttlMillis));
+        }
+        return userDetails;
+    }
+
+    public void invalidate(String email) {
+        invalidations.incrementAndGet();
+        entries.remove(email);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolesChanged(UserRolesChangedEvent event) {
+        invalidate(event.getEmail());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileUpdated(UserProfileUpdatedEvent event) {
+        invalidate(event.getEmail());
+    }
+
+    @Scheduled(fixedDelayString = "${security.user-details-cache.ttl-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
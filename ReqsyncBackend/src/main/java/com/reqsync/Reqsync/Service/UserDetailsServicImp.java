@@ -1,8 +1,7 @@
 package com.reqsync.Reqsync.Service;
 
-import java.util.Collection;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,10 +12,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.reqsync.Reqsync.CustomException.UsersNotFound;
-import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.Model.CustomUserDetails;
 import com.reqsync.Reqsync.Repository.UserRepository;
 
@@ -29,23 +26,43 @@ public class UserDetailsServicImp implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /// What a new access token is built from: the user as it is in the database right now, and the token version
+    /// read together with its roles.
+    public record TokenSubject(CustomUserDetails userDetails, int tokenVersion) {
+    }
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         log.debug("Entered in the loadername method");
-        Optional<User> user = userRepository.findByEmail(email);
-        User user2 = null;
+        return userDetailsCache.get(email, () -> toUserDetails(email, findCredentials(email)));
+    }
 
-        if (user.isEmpty()) {
+    /// Bypasses the UserDetailsCache. A cached entry may predate a role change made on another instance, a token
+    /// built from it would carry the old roles with the new version and pass as current.
+    public TokenSubject loadForToken(String email) {
+        List<Object[]> rows = findCredentials(email);
+        return new TokenSubject(toUserDetails(email, rows), ((Number) rows.get(0)[2]).intValue());
+    }
+
+    private List<Object[]> findCredentials(String email) {
+        List<Object[]> rows = userRepository.findCredentialsByEmail(email);
+        if (rows.isEmpty()) {
             throw new UsersNotFound("User not found with email: " + email);
         }
-        if (user.isPresent()) {
-			user2 = user.get();
-		}
-        Collection<? extends GrantedAuthority> authorities = user.get().getRoles().stream()
-                .map(authRoles -> new SimpleGrantedAuthority(authRoles.getRole()))
-                .collect(Collectors.toList());
-
-        return new CustomUserDetails(user.get().getEmail(), user.get().getPassword() , authorities , user2);
+        return rows;
+    }
+
+    private static CustomUserDetails toUserDetails(String email, List<Object[]> rows) {
+        List<GrantedAuthority> authorities = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                authorities.add(new SimpleGrantedAuthority((String) row[1]));
+            }
+        }
+        // The User entity is not kept, it drags the profile picture and every association along
+        return new CustomUserDetails(email, (String) rows.get(0)[0], List.copyOf(authorities), null);
     }
 }
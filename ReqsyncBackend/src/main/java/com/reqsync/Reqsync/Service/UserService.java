@@ -8,6 +8,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -32,7 +33,11 @@ import com.reqsync.Reqsync.Entity.RequestStatus;
 import com.reqsync.Reqsync.Entity.Roles;
 import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.Entity.Volunteer;
+import com.reqsync.Reqsync.Events.UserProfileUpdatedEvent;
+import com.reqsync.Reqsync.JwtConfig.RefreshTokenService;
+import com.reqsync.Reqsync.JwtConfig.TokenVersionService;
 import com.reqsync.Reqsync.Mapper.HelpRequestMapper;
+import com.reqsync.Reqsync.Matching.VolunteerMatchIndex;
 import com.reqsync.Reqsync.Repository.HelpRequestRepository;
 import com.reqsync.Reqsync.Repository.RoleRepository;
 import com.reqsync.Reqsync.Repository.UserRepository;
@@ -62,6 +67,18 @@ public class UserService {
     @Autowired
     private VolunteerRepository volunteerRepository;
 
+    @Autowired
+    private VolunteerMatchIndex volunteerMatchIndex;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @Transactional
     public User addDaoUser(User user) {
         Optional<User> userInstanceOptional = userRepository.findByEmail(user.getEmail());
@@ -229,6 +246,7 @@ public class UserService {
 
         }
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserProfileUpdatedEvent(this, email));
 
         return UserProfileDto.builder()
                 .email(user.getEmail())
@@ -251,7 +269,10 @@ public class UserService {
                 .orElseThrow(() -> new UsersNotFound("User not found with email: " + email));
 
         try {
+            tokenVersionService.rolesChanged(email); // Drops the cached version and anything else cached about the user
+            refreshTokenService.revokeAll(email); // A new account with the same email must not inherit them
             userRepository.delete(user);
+            volunteerMatchIndex.removeByEmailAfterCommit(email); // The volunteer row is removed with the user
             return true;
         } catch (Exception e) {
             return false;
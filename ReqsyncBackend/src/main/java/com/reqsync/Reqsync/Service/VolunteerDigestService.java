@@ -0,0 +1,159 @@
+package com.reqsync.Reqsync.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.reqsync.Reqsync.Entity.HelpRequest;
+import com.reqsync.Reqsync.Matching.VolunteerContact;
+import com.reqsync.Reqsync.Repository.HelpRequestRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/// Digest mode for volunteers: instead of one email per matching help request they get one summary email per
+/// interval. The fan-out appends a row per volunteer and help request to volunteer_digest_pending, the digest
+/// job reads them back grouped by volunteer, queues one email each and deletes the rows in the same transaction.
+///
+/// Rows are locked with SKIP LOCKED while a digest is built, so several nodes can run the job at once without
+/// sending a volunteer two digests for the same rows.
+@Service
+@Slf4j
+public class VolunteerDigestService {
+
+    private static final String INSERT_SQL = "INSERT INTO volunteer_digest_pending (volunteer_email, volunteer_name, help_request_id, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT id, volunteer_email, volunteer_name, help_request_id FROM volunteer_digest_pending WHERE id <= ? ORDER BY volunteer_email, id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String COUNT_SQL = "SELECT COUNT(DISTINCT p.help_request_id) FROM volunteer_digest_pending p JOIN help_request h ON h.help_request_id = p.help_request_id WHERE p.volunteer_email = ? AND p.id <= ?";
+    private static final String DELETE_VOLUNTEER_SQL = "DELETE FROM volunteer_digest_pending WHERE volunteer_email = ? AND id <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private HelpRequestRepository helpRequestRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.digest.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${email.digest.max-items:50}")
+    private int maxItems;
+
+    private record PendingRow(long id, String email, String name, long helpRequestId) {
+    }
+
+    /// Adds the help request to the next digest of each volunteer, with one JDBC batch.
+    public void append(List<VolunteerContact> volunteers, long helpRequestId) {
+        if (volunteers.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(volunteers.size());
+        for (VolunteerContact volunteer : volunteers) {
+            rows.add(new Object[] { volunteer.email(), volunteer.name(), helpRequestId, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${email.digest.interval-ms:3600000}", initialDelayString = "${email.digest.interval-ms:3600000}")
+    public void sendDigests() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM volunteer_digest_pending", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // Rows appended while the job runs wait for the next interval
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> sendChunk(maxId));
+        } while (sent != null && sent > 0);
+    }
+
+    // Runs in a transaction: the queued emails and the deleted rows commit together
+    private int sendChunk(long maxId) {
+        List<PendingRow> rows = jdbcTemplate.query(SELECT_SQL, (rs, i) -> new PendingRow(rs.getLong("id"),
+                rs.getString("volunteer_email"), rs.getString("volunteer_name"), rs.getLong("help_request_id")),
+                maxId, chunkSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<PendingRow>> byVolunteer = new LinkedHashMap<>();
+        for (PendingRow row : rows) {
+            byVolunteer.computeIfAbsent(row.email(), email -> new ArrayList<>()).add(row);
+        }
+        String overflowing = null;
+        if (rows.size() == chunkSize) {
+            String last = rows.get(rows.size() - 1).email();
+            if (byVolunteer.size() > 1) {
+                // The last volunteer's rows may go on in the next chunk, leave them for it
+                byVolunteer.remove(last);
+            } else {
+                // One volunteer fills the whole chunk, their digest is sent from these rows and the rest are
+                // counted and deleted with them, so the next chunk doesn't send them a second one
+                overflowing = last;
+            }
+        }
+
+        Set<Long> helpRequestIds = new LinkedHashSet<>();
+        byVolunteer.values().forEach(pending -> pending.forEach(row -> helpRequestIds.add(row.helpRequestId())));
+        Map<Long, HelpRequest> helpRequests = new HashMap<>();
+        helpRequestRepository.findAllById(helpRequestIds).forEach(request -> helpRequests.put(request.getId(), request));
+
+        List<Long> done = new ArrayList<>();
+        boolean overflowSent = false;
+        for (Map.Entry<String, List<PendingRow>> entry : byVolunteer.entrySet()) {
+            String email = entry.getKey();
+            List<PendingRow> pending = entry.getValue();
+            Set<Long> seen = new LinkedHashSet<>(); // A redelivered event appends the same request twice
+            List<HelpRequest> items = new ArrayList<>();
+            for (PendingRow row : pending) {
+                HelpRequest request = helpRequests.get(row.helpRequestId()); // Gone when deleted since
+                if (request != null && seen.add(request.getId()) && items.size() < maxItems) {
+                    items.add(request);
+                }
+                done.add(row.id());
+            }
+            if (!items.isEmpty()) {
+                int total = seen.size();
+                if (email.equals(overflowing)) {
+                    total = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, email, maxId);
+                    overflowSent = true;
+                }
+                emailService.sendHelpRequestDigestEmail(email, pending.get(0).name(), items, total);
+                meterRegistry.counter("email.digest.sent").increment();
+            }
+        }
+
+        if (overflowSent) {
+            return jdbcTemplate.update(DELETE_VOLUNTEER_SQL, overflowing, maxId);
+        }
+        // Without a digest sent the overflowing volunteer's remaining rows still get one from the next chunk
+        namedJdbcTemplate.update("DELETE FROM volunteer_digest_pending WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", done));
+        return done.size();
+    }
+}
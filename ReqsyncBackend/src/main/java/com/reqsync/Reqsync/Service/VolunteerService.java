@@ -20,6 +20,8 @@ import com.reqsync.Reqsync.Dto.VolunterrTypes;
 import com.reqsync.Reqsync.Entity.Roles;
 import com.reqsync.Reqsync.Entity.User;
 import com.reqsync.Reqsync.Entity.Volunteer;
+import com.reqsync.Reqsync.JwtConfig.TokenVersionService;
+import com.reqsync.Reqsync.Matching.VolunteerMatchIndex;
 import com.reqsync.Reqsync.Repository.RoleRepository;
 import com.reqsync.Reqsync.Repository.UserRepository;
 import com.reqsync.Reqsync.Repository.VolunteerRepository;
@@ -43,6 +45,12 @@ public class VolunteerService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private VolunteerMatchIndex volunteerMatchIndex; /// Used by the help request fan-out, kept current here.
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
     /**
      * Adds a new Volunteer if the user is authenticated and the email is valid.
      */
@@ -90,6 +98,7 @@ public class VolunteerService {
             // Add the "VOLUNTEER" role to the user
             user.getRoles().add(volunteerRole);
             userRepository.save(user); // Save the updated user with the new role
+            tokenVersionService.rolesChanged(user.getEmail());
         }
 
         // Convert VolunteerDto to Volunteer entity
@@ -106,9 +115,11 @@ public class VolunteerService {
         volunteer.setVolunteeringTypes(volunteerProfileDto.getVolunteeringTypes());
         volunteer.setSkills(volunteerProfileDto.getSkills());
         volunteer.setAbout(volunteerProfileDto.getAbout());
+        volunteer.setDigestMode(Boolean.TRUE.equals(volunteerProfileDto.getDigestMode()));
 
         // Save the volunteer to the database
         volunteerRepository.save(volunteer);
+        volunteerMatchIndex.indexAfterCommit(volunteer);
         emailService.sendVolunteerWelcomeEmail(user.getEmail(),
                 user.getName());
 
@@ -135,6 +146,8 @@ public class VolunteerService {
             // volunteerSkillsRepository.deleteAllByVolunteerId(volunteer.getId());
             volunteerTypeRepository.deleteAllByVolunteerId(volunteer.getId());
             userRepository.save(user);
+            tokenVersionService.rolesChanged(user.getEmail());
+            volunteerMatchIndex.removeAfterCommit(volunteer.getId());
             return true;
         }
         return false;
@@ -192,9 +205,16 @@ public class VolunteerService {
             }
         }
 
+        // Switch between digest and per request emails only if the field is explicitly provided
+        if (volunteerFormDto.getDigestMode() != null && volunteerFormDto.getDigestMode() != volunteer.isDigestMode()) {
+            volunteer.setDigestMode(volunteerFormDto.getDigestMode());
+            changed = true;
+        }
+
         // Save the volunteer only if there were changes
         if (changed) {
             volunteerRepository.save(volunteer);
+            volunteerMatchIndex.indexAfterCommit(volunteer);
         }
 
         return changed;
@@ -214,6 +234,7 @@ public class VolunteerService {
                 .volunteeringTypes(volunteer.getVolunteeringTypes())
                 .skills(volunteer.getSkills())
                 .about(volunteer.getAbout())
+                .digestMode(volunteer.isDigestMode())
                 .build();
     }
 }
@@ -0,0 +1,147 @@
+package com.reqsync.Reqsync.JwtConfig;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+
+/// Throughput of JwtFilter for an authenticated request, against the filter it replaced which built a parser and
+/// derived the key twice per request.
+///
+/// - legacyFilter: the previous filter, two full parses per request.
+/// - filter with cacheSize 0: one parse per request with the shared parser.
+/// - filter with cacheSize 10000: verified claims reused from JwtClaimsCache.
+///
+/// Run with: mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+/// then: java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main JwtFilterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    @Param({ "0", "10000" })
+    private int cacheSize;
+
+    private final UserDetailsService userDetailsService = username -> User.withUsername(username)
+            .password("{noop}password")
+            .roles("USER", "VOLUNTEER")
+            .build();
+
+    private JwtFilter filter;
+    private LegacyJwtFilter legacyFilter;
+    private String authorizationHeader;
+
+    // The filter as it was before the claims were verified once and cached
+    static final class LegacyJwtFilter {
+        private final UserDetailsService userDetailsService;
+        private final String secretKey;
+
+        LegacyJwtFilter(UserDetailsService userDetailsService, String secretKey) {
+            this.userDetailsService = userDetailsService;
+            this.secretKey = secretKey;
+        }
+
+        private SecretKey getSigningKey() {
+            return Keys.hmacShaKeyFor(secretKey.getBytes());
+        }
+
+        private Claims extractAllClaims(String token) {
+            return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+        }
+
+        void doFilter(MockHttpServletRequest request) {
+            String authorizationHeader = request.getHeader("Authorization");
+            String username = null;
+            String jwt = null;
+            if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+                jwt = authorizationHeader.substring(7);
+                username = extractAllClaims(jwt).getSubject();
+            }
+            if (username != null) {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (!extractAllClaims(jwt).getExpiration().before(new java.util.Date())) {
+                    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                            userDetails, userDetails.getPassword(), userDetails.getAuthorities()));
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtClaimsCache claimsCache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(claimsCache, "maxSize", cacheSize);
+        ReflectionTestUtils.setField(claimsCache, "ttlMillis", 300000L);
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCache", claimsCache);
+        jwtUtil.init();
+
+        filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        legacyFilter = new LegacyJwtFilter(userDetailsService, SECRET);
+
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(userDetailsService.loadUserByUsername("volunteer@example.com"), 0);
+    }
+
+    @Benchmark
+    public Object filter() throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", authorizationHeader);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object legacyFilter() {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", authorizationHeader);
+        legacyFilter.doFilter(request);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,208 @@
+package com.reqsync.Reqsync.Mail;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.reqsync.Reqsync.Service.EmailService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/// Splits broadcasts into BCC chunks with EmailService and sends the chunks with EmailOutboxWorker to
+/// FakeSmtpServer. The outbox is a mock, the tests check what the worker settles each chunk with.
+class EmailBroadcastTest {
+
+    private static final int MAX_RECIPIENTS = 50;
+    private static final String BROADCAST_TO = "noreply@reqsync.local";
+
+    private FakeSmtpServer server;
+    private EmailOutbox emailOutbox;
+    private EmailService emailService;
+    private SmtpTransportPool pool;
+    private EmailOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        emailOutbox = mock(EmailOutbox.class);
+        when(emailOutbox.renew(any())).thenReturn(true);
+
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "emailOutbox", emailOutbox);
+        ReflectionTestUtils.setField(emailService, "broadcastMaxRecipients", MAX_RECIPIENTS);
+        ReflectionTestUtils.setField(emailService, "broadcastTo", BROADCAST_TO);
+
+        pool = new SmtpTransportPool();
+        ReflectionTestUtils.setField(pool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(pool, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pool, "size", 1);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 100);
+        ReflectionTestUtils.setField(pool, "idleTimeoutMillis", 30000L);
+        ReflectionTestUtils.setField(pool, "timeoutMillis", 2000L);
+        pool.init();
+
+        worker = new EmailOutboxWorker();
+        ReflectionTestUtils.setField(worker, "emailOutbox", emailOutbox);
+        ReflectionTestUtils.setField(worker, "mailSender", mailSender);
+        ReflectionTestUtils.setField(worker, "transportPool", pool);
+        ReflectionTestUtils.setField(worker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(worker, "workers", 1);
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 8);
+        ReflectionTestUtils.setField(worker, "backoffInitialMillis", 1000L);
+        ReflectionTestUtils.setField(worker, "backoffMaxMillis", 60000L);
+        ReflectionTestUtils.setField(worker, "provider", "fake");
+        ReflectionTestUtils.setField(worker, "ratePerSecond", 1000.0);
+        ReflectionTestUtils.setField(worker, "burst", 1000.0);
+        ReflectionTestUtils.setField(worker, "breakerFailureThreshold", 5);
+        ReflectionTestUtils.setField(worker, "breakerOpenMillis", 30000L);
+        ReflectionTestUtils.setField(worker, "breakerHalfOpenProbes", 1);
+        worker.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        worker.shutdown();
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    void noRecipientsQueuesNothing() {
+        emailService.sendBroadcast(broadcast(), List.of());
+
+        verify(emailOutbox, never()).enqueueAll(any());
+    }
+
+    @Test
+    void chunksStopAtTheMaxRecipients() {
+        assertEquals(List.of(1), chunkSizes(1));
+        assertEquals(List.of(49), chunkSizes(MAX_RECIPIENTS - 1));
+        assertEquals(List.of(50), chunkSizes(MAX_RECIPIENTS));
+        assertEquals(List.of(50, 1), chunkSizes(MAX_RECIPIENTS + 1));
+        assertEquals(List.of(50, 50), chunkSizes(2 * MAX_RECIPIENTS));
+        assertEquals(List.of(50, 50, 1), chunkSizes(2 * MAX_RECIPIENTS + 1));
+    }
+
+    @Test
+    void everyChunkIsOneOutboxRowAndOneMessage() {
+        List<String> volunteers = volunteers(120);
+        List<OutgoingEmail> chunks = enqueued(volunteers);
+        assertEquals(3, chunks.size());
+
+        List<EmailOutbox.Claimed> claimed = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            claimed.add(claimed(i + 1, chunks.get(i)));
+        }
+        when(emailOutbox.claim(anyInt())).thenReturn(claimed);
+        worker.poll();
+
+        for (EmailOutbox.Claimed chunk : claimed) {
+            verify(emailOutbox, timeout(5000)).markSent(chunk);
+        }
+        assertEquals(3, server.getMessages().size());
+        List<String> received = new ArrayList<>();
+        for (FakeSmtpServer.ReceivedMessage message : server.getMessages()) {
+            assertEquals(BROADCAST_TO, message.recipients().get(0));
+            received.addAll(message.recipients().subList(1, message.recipients().size()));
+        }
+        assertEquals(volunteers, received);
+    }
+
+    @Test
+    void refusedBccRecipientsAreDeadLetteredAndTheRestRetried() {
+        List<String> volunteers = volunteers(5);
+        server.reject(volunteers.get(1));
+        server.reject(volunteers.get(3));
+        EmailOutbox.Claimed chunk = claimed(1, enqueued(volunteers).get(0));
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(chunk));
+
+        worker.poll();
+
+        verify(emailOutbox, timeout(5000)).retryWithBcc(eq(chunk),
+                eq(List.of(volunteers.get(0), volunteers.get(2), volunteers.get(4))), anyLong(), anyString());
+        verify(emailOutbox).deadLetter(eq(chunk), eq(List.of(volunteers.get(1), volunteers.get(3))), anyString());
+        verify(emailOutbox, never()).markSent(any());
+        assertEquals(0, server.getMessages().size()); // Nothing is sent while an address is refused
+    }
+
+    @Test
+    void chunkWithOnlyRefusedBccRecipientsIsSettled() {
+        List<String> volunteers = volunteers(2);
+        volunteers.forEach(server::reject);
+        EmailOutbox.Claimed chunk = claimed(1, enqueued(volunteers).get(0));
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(chunk));
+
+        worker.poll();
+
+        verify(emailOutbox, timeout(5000)).markSent(chunk);
+        verify(emailOutbox).deadLetter(eq(chunk), eq(volunteers), anyString());
+        verify(emailOutbox, never()).retryWithBcc(any(), any(), anyLong(), anyString());
+    }
+
+    @Test
+    void refusedVisibleRecipientDeadLettersTheWholeChunk() {
+        server.reject(BROADCAST_TO);
+        EmailOutbox.Claimed chunk = claimed(1, enqueued(volunteers(3)).get(0));
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(chunk));
+
+        worker.poll();
+
+        verify(emailOutbox, timeout(5000)).deadLetter(eq(chunk), anyString());
+        verify(emailOutbox, never()).retryWithBcc(any(), any(), anyLong(), anyString());
+        verify(emailOutbox, never()).markSent(any());
+    }
+
+    private List<Integer> chunkSizes(int recipients) {
+        return enqueued(volunteers(recipients)).stream().map(chunk -> chunk.bcc().size()).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutgoingEmail> enqueued(List<String> recipients) {
+        clearInvocations(emailOutbox);
+        emailService.sendBroadcast(broadcast(), recipients);
+        ArgumentCaptor<List<OutgoingEmail>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailOutbox).enqueueAll(captor.capture());
+        for (OutgoingEmail chunk : captor.getValue()) {
+            assertEquals(BROADCAST_TO, chunk.recipient());
+        }
+        return captor.getValue();
+    }
+
+    private static OutgoingEmail broadcast() {
+        return new OutgoingEmail(BROADCAST_TO, "requestor@example.com", "Issue reported", "<p>Issue</p>");
+    }
+
+    private static List<String> volunteers(int count) {
+        return new ArrayList<>(IntStream.range(0, count).mapToObj(i -> "volunteer" + i + "@example.com").toList());
+    }
+
+    private static EmailOutbox.Claimed claimed(long id, OutgoingEmail email) {
+        return new EmailOutbox.Claimed(id, email, 1, System.currentTimeMillis(), "token-" + id);
+    }
+}
@@ -0,0 +1,148 @@
+package com.reqsync.Reqsync.Mail;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+/// Drives the pooled SMTP delivery against FakeSmtpServer, without a Spring context or a database.
+class EmailDeliveryTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int MAX_MESSAGES_PER_CONNECTION = 50;
+
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+
+        pool = new SmtpTransportPool();
+        ReflectionTestUtils.setField(pool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(pool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pool, "size", POOL_SIZE);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", MAX_MESSAGES_PER_CONNECTION);
+        ReflectionTestUtils.setField(pool, "idleTimeoutMillis", 30000L);
+        ReflectionTestUtils.setField(pool, "timeoutMillis", 2000L);
+        pool.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    void burstReusesPooledConnections() throws Exception {
+        int messages = 200;
+        server.setDataDelayMillis(1);
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < messages; i++) {
+                String to = "volunteer" + i + "@example.com";
+                results.add(workers.submit(() -> send(to)));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        assertEquals(messages, server.getMessages().size());
+        // Each connection is recycled after MAX_MESSAGES_PER_CONNECTION, never one connection per message
+        int maxConnections = POOL_SIZE + messages / MAX_MESSAGES_PER_CONNECTION;
+        assertTrue(server.getConnectionCount() <= maxConnections,
+                "Opened " + server.getConnectionCount() + " connections, expected at most " + maxConnections);
+    }
+
+    @Test
+    void refusedRecipientKeepsTheConnection() throws Exception {
+        server.reject("gone@example.com");
+
+        assertThrows(SendFailedException.class, () -> send("gone@example.com"));
+        send("volunteer@example.com");
+
+        assertEquals(1, server.getMessages().size());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    void breakerOpensOnOutageAndClosesAfterProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, 200, 1);
+        server.setFailing(true);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            assertThrows(MessagingException.class, () -> send("volunteer@example.com"));
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        server.setFailing(false);
+        Thread.sleep(250);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire()); // Only one probe at a time
+        send("volunteer@example.com");
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(1, server.getMessages().size());
+    }
+
+    @Test
+    void breakerReopensWhenProbeFails() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 100, 1);
+        breaker.onFailure();
+        Thread.sleep(150);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private Void send(String to) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(new InternetAddress("noreply@reqsync.test"));
+        message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress(to));
+        message.setSubject("Help request nearby");
+        message.setText("Someone near you needs help.");
+        SmtpTransportPool.PooledTransport transport = pool.borrow();
+        try {
+            transport.send(message);
+        } finally {
+            pool.release(transport);
+        }
+        return null;
+    }
+}
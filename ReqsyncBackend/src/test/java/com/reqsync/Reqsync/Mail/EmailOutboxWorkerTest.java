@@ -0,0 +1,120 @@
+package com.reqsync.Reqsync.Mail;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/// Runs EmailOutboxWorker with a mocked outbox and transport, to check that every call the circuit breaker
+/// lets through is settled, whatever the transport throws.
+class EmailOutboxWorkerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private EmailOutbox emailOutbox;
+    private SmtpTransportPool.PooledTransport transport;
+    private EmailOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        emailOutbox = mock(EmailOutbox.class);
+        when(emailOutbox.renew(any())).thenReturn(true);
+        transport = mock(SmtpTransportPool.PooledTransport.class);
+        SmtpTransportPool pool = mock(SmtpTransportPool.class);
+        when(pool.borrow()).thenReturn(transport);
+
+        worker = new EmailOutboxWorker();
+        ReflectionTestUtils.setField(worker, "emailOutbox", emailOutbox);
+        ReflectionTestUtils.setField(worker, "mailSender", new JavaMailSenderImpl());
+        ReflectionTestUtils.setField(worker, "transportPool", pool);
+        ReflectionTestUtils.setField(worker, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(worker, "workers", 1);
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 8);
+        ReflectionTestUtils.setField(worker, "backoffInitialMillis", 1000L);
+        ReflectionTestUtils.setField(worker, "backoffMaxMillis", 60000L);
+        ReflectionTestUtils.setField(worker, "provider", "fake");
+        ReflectionTestUtils.setField(worker, "ratePerSecond", 1000.0);
+        ReflectionTestUtils.setField(worker, "burst", 1000.0);
+        ReflectionTestUtils.setField(worker, "breakerFailureThreshold", 1);
+        ReflectionTestUtils.setField(worker, "breakerOpenMillis", OPEN_MILLIS);
+        ReflectionTestUtils.setField(worker, "breakerHalfOpenProbes", 1);
+        worker.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void probeThatThrowsReopensTheBreaker() throws Exception {
+        EmailOutbox.Claimed outage = claimed(1);
+        EmailOutbox.Claimed probe = claimed(2);
+        EmailOutbox.Claimed recovered = claimed(3);
+        doThrow(new MessagingException("Connection refused"))
+                .doThrow(new IllegalStateException("Not connected"))
+                .doNothing()
+                .when(transport).send(any(MimeMessage.class));
+
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(outage));
+        worker.poll();
+        verify(emailOutbox, timeout(2000)).retryAt(eq(outage), anyLong(), anyString());
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(probe));
+        worker.poll(); // The half open probe fails with an unchecked exception
+        verify(transport, timeout(2000).times(2)).send(any(MimeMessage.class));
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(recovered));
+        worker.poll(); // A breaker left half open would refuse this one as "Circuit open"
+        verify(emailOutbox, timeout(2000)).markSent(recovered);
+        verify(emailOutbox, never()).postpone(any(), anyLong(), eq("Circuit open"));
+        verify(emailOutbox, never()).markSent(probe);
+    }
+
+    @Test
+    void failingMarkSentStillClosesTheBreaker() throws Exception {
+        EmailOutbox.Claimed first = claimed(1);
+        EmailOutbox.Claimed second = claimed(2);
+        doThrow(new IllegalStateException("Database down")).when(emailOutbox).markSent(first);
+        doNothing().when(emailOutbox).markSent(second);
+
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(first));
+        worker.poll();
+        verify(emailOutbox, timeout(2000)).markSent(first);
+
+        when(emailOutbox.claim(anyInt())).thenReturn(List.of(second));
+        worker.poll();
+        verify(emailOutbox, timeout(2000)).markSent(second);
+        verify(transport, times(2)).send(any(MimeMessage.class));
+        verify(emailOutbox, never()).postpone(any(), anyLong(), anyString());
+    }
+
+    private static EmailOutbox.Claimed claimed(long id) {
+        OutgoingEmail email = new OutgoingEmail("volunteer" + id + "@example.com", null, "Subject", "<p>Body</p>");
+        return new EmailOutbox.Claimed(id, email, 1, System.currentTimeMillis(), "token-" + id);
+    }
+}
@@ -0,0 +1,69 @@
+package com.reqsync.Reqsync.Mail;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class EmailTemplateTest {
+
+    @Test
+    void escapesValues() {
+        EmailTemplate template = EmailTemplate.compile("<p>Hello {{name}}</p>", "name");
+
+        assertEquals("<p>Hello &lt;b&gt;Tom &amp; &quot;Jerry&quot; O&#39;Neil&lt;/b&gt;</p>",
+                template.render("<b>Tom & \"Jerry\" O'Neil</b>"));
+    }
+
+    @Test
+    void rawSlotsAreWrittenAsIs() {
+        EmailTemplate template = EmailTemplate.compile("<div>{{{body}}}</div><p>{{footer}}</p>", "body", "footer");
+
+        assertEquals("<div><b>Bold</b></div><p>&lt;i&gt;</p>", template.render("<b>Bold</b>", "<i>"));
+    }
+
+    @Test
+    void valuesFollowTheOrderOfTheNamesAndCanRepeat() {
+        EmailTemplate template = EmailTemplate.compile("{{b}}-{{a}}-{{ b }}", "a", "b");
+
+        assertEquals("2-1-2", template.render(1, 2));
+    }
+
+    @Test
+    void nullValueRendersAsNothing() {
+        EmailTemplate template = EmailTemplate.compile("[{{a}}][{{{b}}}]", "a", "b");
+
+        assertEquals("[][]", template.render(null, null));
+    }
+
+    @Test
+    void templateWithoutSlots() {
+        EmailTemplate template = EmailTemplate.compile("<p>No slots</p>");
+
+        assertEquals("<p>No slots</p>", template.render());
+    }
+
+    @Test
+    void missingOrExtraValuesAreRefused() {
+        EmailTemplate template = EmailTemplate.compile("{{a}} {{b}}", "a", "b");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render("only one"));
+        assertThrows(IllegalArgumentException.class, () -> template.render("a", "b", "c"));
+    }
+
+    @Test
+    void unknownOrUnclosedSlotsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{missing}}", "name"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("<p>{{name</p>", "name"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("<p>{{{name}}</p>", "name"));
+    }
+
+    @Test
+    void aLargeRenderDoesNotLeakIntoTheNextOne() {
+        EmailTemplate template = EmailTemplate.compile("<p>{{text}}</p>", "text");
+
+        template.render("x".repeat(100_000));
+
+        assertEquals("<p>short</p>", template.render("short"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.reqsync.Reqsync.Matching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.reqsync.Reqsync.Dto.VolunterrTypes;
+import com.reqsync.Reqsync.Entity.User;
+import com.reqsync.Reqsync.Entity.Volunteer;
+import com.reqsync.Reqsync.Repository.VolunteerRepository;
+
+/// Builds the VolunteerMatchIndex from an in-memory database, with the real repository queries.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:volunteers;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+class VolunteerMatchIndexTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    private VolunteerMatchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VolunteerMatchIndex();
+        ReflectionTestUtils.setField(index, "volunteerRepository", volunteerRepository);
+        ReflectionTestUtils.setField(index, "loadBatchSize", 2); // Volunteers with several skills cross pages
+    }
+
+    @Test
+    void indexesVolunteersWithAndWithoutSkills() {
+        persist("none@example.com", List.of());
+        persist("several@example.com", List.of("First Aid", "Driving", "Cooking"));
+        persist("one@example.com", List.of("driving"));
+
+        index.load();
+
+        assertEquals(List.of("none@example.com", "several@example.com", "one@example.com"),
+                emails(index.match(VolunterrTypes.MEDICAL_ASSISTANCE, "Pune")));
+        assertEquals(List.of("several@example.com", "one@example.com"),
+                emails(index.match(null, "pune", List.of("Driving"))));
+        assertEquals(List.of("several@example.com"), emails(index.match(null, "pune", List.of("first-aid"))));
+    }
+
+    @Test
+    void pagesCountVolunteersNotSkills() {
+        for (int i = 0; i < 5; i++) {
+            persist("volunteer" + i + "@example.com", List.of("a" + i, "b" + i, "c" + i));
+        }
+
+        index.load();
+
+        List<Integer> pageSizes = new ArrayList<>();
+        index.forEachPage(0, 2, page -> pageSizes.add(page.size()));
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(5, index.match(null, "pune").size());
+    }
+
+    private void persist(String email, List<String> skills) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        entityManager.persist(user);
+        Volunteer volunteer = new Volunteer();
+        volunteer.setUser(user);
+        volunteer.setName("Volunteer");
+        volunteer.setPhone("9999999999");
+        volunteer.setArea(" Pune ");
+        volunteer.setAbout("About");
+        volunteer.setVolunteeringTypes(List.of(VolunterrTypes.MEDICAL_ASSISTANCE));
+        volunteer.setSkills(new ArrayList<>(skills));
+        entityManager.persist(volunteer);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static List<String> emails(List<VolunteerContact> contacts) {
+        return contacts.stream().map(VolunteerContact::email).toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.reqsync.Reqsync.Notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Principal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/// Checks which users StompNotificationChannel reports as connected, from the session events alone.
+class StompNotificationChannelTest {
+
+    private static final String EMAIL = "volunteer@example.com";
+    private static final Principal USER = () -> EMAIL;
+
+    private StompNotificationChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = new StompNotificationChannel();
+    }
+
+    @Test
+    void duplicateDisconnectKeepsTheOtherSession() {
+        subscribe("s1", "sub-0", "/user/queue/notifications");
+        subscribe("s2", "sub-0", "/user/queue/notifications");
+
+        disconnect("s1");
+        disconnect("s1"); // Spring may publish it twice
+
+        assertTrue(channel.isConnected(EMAIL));
+        disconnect("s2");
+        assertFalse(channel.isConnected(EMAIL));
+        assertEquals(List.of(), channel.connectedUsers());
+    }
+
+    @Test
+    void onlyASubscriptionToTheOwnQueueCounts() {
+        subscribe("s1", "sub-0", "/topic/help:MEDICAL_ASSISTANCE@pune");
+
+        assertFalse(channel.isConnected(EMAIL));
+        subscribe("s1", "sub-1", "/user/queue/notifications");
+        assertTrue(channel.isConnected(EMAIL));
+    }
+
+    @Test
+    void unsubscribingTheLastQueueSubscriptionDisconnects() {
+        subscribe("s1", "sub-0", "/user/queue/notifications");
+        subscribe("s1", "sub-1", "/user/queue/notifications");
+        subscribe("s1", "sub-2", "/topic/help:MEDICAL_ASSISTANCE@pune");
+
+        unsubscribe("s1", "sub-2");
+        unsubscribe("s1", "sub-0");
+        assertTrue(channel.isConnected(EMAIL));
+        unsubscribe("s1", "sub-1");
+        assertFalse(channel.isConnected(EMAIL));
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        channel.onSubscribed(new SessionSubscribeEvent(this, message(headers), USER));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        channel.onUnsubscribed(new SessionUnsubscribeEvent(this, message(headers), USER));
+    }
+
+    private void disconnect(String sessionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        headers.setSessionId(sessionId);
+        channel.onDisconnected(new SessionDisconnectEvent(this, message(headers), sessionId, CloseStatus.NORMAL,
+                USER));
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor headers) {
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,125 @@
+package com.reqsync.Reqsync.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.reqsync.Reqsync.Entity.HelpRequest;
+import com.reqsync.Reqsync.Entity.User;
+import com.reqsync.Reqsync.Matching.VolunteerContact;
+import com.reqsync.Reqsync.Repository.HelpRequestRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/// Runs the digest job against an in-memory database, with a chunk size small enough to split volunteers.
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:digests;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+class VolunteerDigestServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HelpRequestRepository helpRequestRepository;
+
+    private final EmailService emailService = mock(EmailService.class);
+
+    private VolunteerDigestService digestService;
+
+    private User requester;
+
+    @BeforeEach
+    void setUp() {
+        digestService = new VolunteerDigestService();
+        ReflectionTestUtils.setField(digestService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(digestService, "namedJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+        ReflectionTestUtils.setField(digestService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(digestService, "helpRequestRepository", helpRequestRepository);
+        ReflectionTestUtils.setField(digestService, "emailService", emailService);
+        ReflectionTestUtils.setField(digestService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(digestService, "chunkSize", 3);
+        ReflectionTestUtils.setField(digestService, "maxItems", 50);
+
+        requester = new User();
+        requester.setEmail("requester@example.com");
+        requester.setPassword("hash");
+        entityManager.persist(requester);
+    }
+
+    @Test
+    void volunteerWithMoreRowsThanAChunkGetsOneDigest() {
+        VolunteerContact busy = new VolunteerContact(1, "a@example.com", "Busy", true);
+        VolunteerContact other = new VolunteerContact(2, "b@example.com", "Other", true);
+        for (int i = 0; i < 5; i++) {
+            long helpRequestId = persistHelpRequest();
+            digestService.append(i < 2 ? List.of(busy, other) : List.of(busy), helpRequestId);
+        }
+
+        digestService.sendDigests();
+
+        ArgumentCaptor<List<HelpRequest>> items = listCaptor();
+        verify(emailService, times(1)).sendHelpRequestDigestEmail(eq("a@example.com"), eq("Busy"), items.capture(),
+                eq(5));
+        assertEquals(3, items.getValue().size()); // From the first chunk, the total counts the rest
+        verify(emailService, times(1)).sendHelpRequestDigestEmail(eq("b@example.com"), anyString(), anyList(), eq(2));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM volunteer_digest_pending", Integer.class));
+    }
+
+    @Test
+    void volunteersSharingAChunkEachGetOneDigest() {
+        VolunteerContact first = new VolunteerContact(1, "a@example.com", "First", true);
+        VolunteerContact second = new VolunteerContact(2, "b@example.com", "Second", true);
+        for (int i = 0; i < 2; i++) {
+            digestService.append(List.of(first, second), persistHelpRequest());
+        }
+
+        digestService.sendDigests();
+
+        verify(emailService, times(1)).sendHelpRequestDigestEmail(eq("a@example.com"), anyString(), anyList(), eq(2));
+        verify(emailService, times(1)).sendHelpRequestDigestEmail(eq("b@example.com"), anyString(), anyList(), eq(2));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM volunteer_digest_pending", Integer.class));
+    }
+
+    private long persistHelpRequest() {
+        HelpRequest helpRequest = HelpRequest.builder()
+                .user(requester)
+                .name("Requester")
+                .phone("9999999999")
+                .area("Pune")
+                .helpType("MEDICAL_ASSISTANCE")
+                .message("Need help")
+                .build();
+        entityManager.persist(helpRequest);
+        entityManager.flush();
+        return helpRequest.getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<HelpRequest>> listCaptor() {
+        return ArgumentCaptor.forClass((Class<List<HelpRequest>>) (Class<?>) List.class);
+    }
+}